@@ -0,0 +1,195 @@
+package com.cleveroad.pulltorefresh.firework.benchmark;
+
+import com.cleveroad.pulltorefresh.firework.BubbleFirework;
+import com.cleveroad.pulltorefresh.firework.BubbleRenderer;
+import com.cleveroad.pulltorefresh.firework.particlesystem.Particle;
+import com.cleveroad.pulltorefresh.firework.particlesystem.ParticleEmitter;
+import com.cleveroad.pulltorefresh.firework.particlesystem.ParticleRenderer;
+import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.RotationSpeedInitializer;
+import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.ScaleInitializer;
+import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.SpeedModuleAndRangeInitializer;
+import com.cleveroad.pulltorefresh.firework.particlesystem.modifiers.AlphaModifier;
+import com.cleveroad.pulltorefresh.firework.particlesystem.modifiers.ScaleModifier;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Drives the per-frame paths of the simulation for a number of frames after warm-up and fails
+ * when they allocate more than their budget. Run by {@code ./gradlew :benchmark:checkAllocations},
+ * which is a part of {@code check}.
+ */
+public class AllocationBudgetCheck {
+    private static final int WARM_UP_FRAMES = 20000;
+    private static final int MEASURED_FRAMES = 10000;
+    private static final long FRAME_MILLIS = 16L;
+    private static final long TIME_TO_LIVE = 800L;
+    private static final int MAX_FIREWORKS_COUNT = 2;
+    /**
+     * A burst fades out in about 65 frames, prebuilt bursts are counted with a margin
+     */
+    private static final int MIN_BURST_FRAMES = 30;
+    private static final int[] COLORS = {0xFFFFFFFF};
+
+    private final com.sun.management.ThreadMXBean mThreadBean;
+    private final long mThreadId = Thread.currentThread().getId();
+    private long mMeasurementOverhead;
+    private boolean mIsFailed;
+
+    private AllocationBudgetCheck(com.sun.management.ThreadMXBean threadBean) {
+        mThreadBean = threadBean;
+    }
+
+    public static void main(String[] args) {
+        final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            System.err.println("Thread allocation counter is not supported by this JVM");
+            System.exit(2);
+            return;
+        }
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+        bean.setThreadAllocatedMemoryEnabled(true);
+        final AllocationBudgetCheck check = new AllocationBudgetCheck(bean);
+        check.calibrate();
+
+        final ParticleEmitter<Particle> emitter = createEmitter();
+        check.run("emitter update", 0, new Frame() {
+            private long mTime;
+
+            @Override
+            public void draw() {
+                mTime += FRAME_MILLIS;
+                emitter.update(mTime);
+            }
+        });
+        final CountingRenderer renderer = new CountingRenderer();
+        check.run("emitter draw", 0, new Frame() {
+            @Override
+            public void draw() {
+                emitter.draw(renderer);
+            }
+        });
+        final Random random = new Random(42);
+        //bursts are created beforehand, so only advancing of live bursts is measured
+        final BubbleFirework[] prebuilt = new BubbleFirework[(WARM_UP_FRAMES + MEASURED_FRAMES) / MIN_BURST_FRAMES];
+        for (int i = 0; i < prebuilt.length; i++) {
+            prebuilt[i] = createFirework(random);
+        }
+        check.run("bubbles advance", 0, new Frame() {
+            private int mIndex;
+
+            @Override
+            public void draw() {
+                prebuilt[mIndex].advance(1f, renderer);
+                if (prebuilt[mIndex].isFinished()) {
+                    mIndex++;
+                }
+            }
+        });
+        //same lists and loop as ClassicFireworksDrawer, finished bursts are restarted
+        final List<BubbleFirework> fireworks = new ArrayList<>(MAX_FIREWORKS_COUNT);
+        final List<BubbleFirework> finishedFireworks = new ArrayList<>(MAX_FIREWORKS_COUNT);
+        check.run("bubble bursts", 0, new Frame() {
+            @Override
+            public void draw() {
+                if (fireworks.isEmpty()) {
+                    fireworks.add(obtainFirework(random, finishedFireworks));
+                }
+                for (int i = 0; i < fireworks.size(); i++) {
+                    final BubbleFirework firework = fireworks.get(i);
+                    firework.advance(1f, renderer);
+                    if (firework.isFinished()) {
+                        finishedFireworks.add(fireworks.remove(i));
+                        i--;
+                        continue;
+                    }
+                    if (firework.isNextFireworkDue() && fireworks.size() < MAX_FIREWORKS_COUNT) {
+                        fireworks.add(obtainFirework(random, finishedFireworks));
+                    }
+                }
+            }
+        });
+
+        System.out.println("Drawn " + renderer.mCount + " items");
+        if (check.mIsFailed) {
+            System.exit(1);
+        }
+    }
+
+    private static BubbleFirework createFirework(Random random) {
+        return BubbleFirework.create(random, 1080, 600, MAX_FIREWORKS_COUNT, 24f, COLORS);
+    }
+
+    private static BubbleFirework obtainFirework(Random random, List<BubbleFirework> finishedFireworks) {
+        if (finishedFireworks.isEmpty()) {
+            return createFirework(random);
+        }
+        final BubbleFirework firework = finishedFireworks.remove(finishedFireworks.size() - 1);
+        firework.restart(random, 1080, 600, MAX_FIREWORKS_COUNT, 24f, COLORS);
+        return firework;
+    }
+
+    /**
+     * Particles configured like the stars of the modern fireworks, emitted continuously,
+     * so each frame activates some of them and expires others
+     */
+    private static ParticleEmitter<Particle> createEmitter() {
+        final ParticleEmitter<Particle> emitter = new ParticleEmitter<>(TIME_TO_LIVE, new Random(42));
+        for (int i = 0; i < 100; i++) {
+            emitter.addParticle(new Particle(48, 48));
+        }
+        emitter.addInitializer(new ScaleInitializer(0.7f, 1.3f));
+        emitter.addInitializer(new SpeedModuleAndRangeInitializer(0.09f, 0.21f, 0, 360));
+        emitter.addInitializer(new RotationSpeedInitializer(90, 180));
+        emitter.addModifier(new AlphaModifier(255, 0, TIME_TO_LIVE - 500, TIME_TO_LIVE));
+        emitter.addModifier(new ScaleModifier(1f, 0.5f, 0, TIME_TO_LIVE));
+        emitter.setEmitterRange(500, 580, 300, 340);
+        emitter.startEmitting(120);
+        return emitter;
+    }
+
+    private void calibrate() {
+        final long start = mThreadBean.getThreadAllocatedBytes(mThreadId);
+        mMeasurementOverhead = mThreadBean.getThreadAllocatedBytes(mThreadId) - start;
+    }
+
+    /**
+     * @param budget max allocated bytes per frame
+     */
+    private void run(String name, long budget, Frame frame) {
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            frame.draw();
+        }
+        final long start = mThreadBean.getThreadAllocatedBytes(mThreadId);
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            frame.draw();
+        }
+        final long allocated = Math.max(0, mThreadBean.getThreadAllocatedBytes(mThreadId) - start - mMeasurementOverhead);
+        final double perFrame = allocated / (double) MEASURED_FRAMES;
+        final boolean isOverBudget = perFrame > budget;
+        System.out.println(String.format("%-20s %10d bytes in %d frames, %.2f per frame, budget %d %s",
+                name, allocated, MEASURED_FRAMES, perFrame, budget, isOverBudget ? "FAILED" : "OK"));
+        mIsFailed |= isOverBudget;
+    }
+
+    private interface Frame {
+        void draw();
+    }
+
+    private static class CountingRenderer implements ParticleRenderer<Particle>, BubbleRenderer {
+        private long mCount;
+
+        @Override
+        public void drawParticle(Particle particle) {
+            mCount++;
+        }
+
+        @Override
+        public void drawBubble(float x, float y, float radius, int color, int alpha) {
+            mCount++;
+        }
+    }
+}
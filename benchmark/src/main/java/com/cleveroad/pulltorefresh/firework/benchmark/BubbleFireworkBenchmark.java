@@ -0,0 +1,86 @@
+package com.cleveroad.pulltorefresh.firework.benchmark;
+
+import com.cleveroad.pulltorefresh.firework.BubbleFirework;
+import com.cleveroad.pulltorefresh.firework.BubbleRenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Burst creation and bubbles integration of the classic fireworks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BubbleFireworkBenchmark {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 600;
+    private static final float BUBBLE_RADIUS = 24f;
+    private static final int[] COLORS = {0xFFF44336, 0xFFFFEB3B, 0xFF4CAF50, 0xFF2196F3};
+    /**
+     * Safety limit, the burst fades out in about 65 reference frames
+     */
+    private static final int MAX_FRAMES = 10000;
+
+    @Param({"1", "3"})
+    int mMaxFireworksCount;
+
+    /**
+     * Reference (60 fps) frames per drawn frame, 0.5 is a 120 fps display
+     */
+    @Param({"1", "0.5"})
+    float mFrameSteps;
+
+    private final Random mRandom = new Random(42);
+    private BubbleRenderer mRenderer;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        mRenderer = new BubbleRenderer() {
+            @Override
+            public void drawBubble(float x, float y, float radius, int color, int alpha) {
+                blackhole.consume(x);
+                blackhole.consume(y);
+                blackhole.consume(radius);
+                blackhole.consume(color);
+                blackhole.consume(alpha);
+            }
+        };
+    }
+
+    @Benchmark
+    public BubbleFirework create() {
+        return BubbleFirework.create(mRandom, WIDTH, HEIGHT, mMaxFireworksCount, BUBBLE_RADIUS, COLORS);
+    }
+
+    /**
+     * Create a burst and advance it until all bubbles fade out
+     * @return number of frames drawn
+     */
+    @Benchmark
+    public int fullRefresh() {
+        final BubbleFirework firework = create();
+        int frames = 0;
+        do {
+            firework.advance(mFrameSteps, mRenderer);
+            frames++;
+        } while (!firework.isFinished() && frames < MAX_FRAMES);
+        return frames;
+    }
+}
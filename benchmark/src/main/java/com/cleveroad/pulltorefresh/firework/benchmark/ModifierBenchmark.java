@@ -0,0 +1,70 @@
+package com.cleveroad.pulltorefresh.firework.benchmark;
+
+import com.cleveroad.pulltorefresh.firework.particlesystem.Particle;
+import com.cleveroad.pulltorefresh.firework.particlesystem.modifiers.AccelerationModifier;
+import com.cleveroad.pulltorefresh.firework.particlesystem.modifiers.AlphaModifier;
+import com.cleveroad.pulltorefresh.firework.particlesystem.modifiers.ParticleModifier;
+import com.cleveroad.pulltorefresh.firework.particlesystem.modifiers.ScaleModifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of a single modifier for a single particle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModifierBenchmark {
+    private static final long TIME_TO_LIVE = 800L;
+    private static final long FRAME_MILLIS = 16L;
+
+    private final Particle mParticle = new Particle(48, 48);
+    private ParticleModifier mAlphaModifier;
+    private ParticleModifier mScaleModifier;
+    private ParticleModifier mAccelerationModifier;
+    private long mTime;
+
+    @Setup
+    public void setUp() {
+        mAlphaModifier = new AlphaModifier(255, 0, TIME_TO_LIVE - 500, TIME_TO_LIVE);
+        mScaleModifier = new ScaleModifier(1f, 0.5f, 0, TIME_TO_LIVE);
+        mAccelerationModifier = new AccelerationModifier(0.0002f, 90);
+    }
+
+    @Benchmark
+    public int alpha() {
+        mAlphaModifier.apply(mParticle, nextTime());
+        return mParticle.getAlpha();
+    }
+
+    @Benchmark
+    public float scale() {
+        mScaleModifier.apply(mParticle, nextTime());
+        return mParticle.getScale();
+    }
+
+    @Benchmark
+    public float acceleration() {
+        mAccelerationModifier.apply(mParticle, nextTime());
+        return mParticle.getCurrentX() + mParticle.getCurrentY();
+    }
+
+    private long nextTime() {
+        mTime = (mTime + FRAME_MILLIS) % TIME_TO_LIVE;
+        return mTime;
+    }
+}
@@ -0,0 +1,76 @@
+package com.cleveroad.pulltorefresh.firework.benchmark;
+
+import com.cleveroad.pulltorefresh.firework.particlesystem.Particle;
+import com.cleveroad.pulltorefresh.firework.particlesystem.ParticleEmitter;
+import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.RotationSpeedInitializer;
+import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.ScaleInitializer;
+import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.SpeedModuleAndRangeInitializer;
+import com.cleveroad.pulltorefresh.firework.particlesystem.modifiers.AlphaModifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Activation and update of the particles, configured like the stars of the modern fireworks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParticleEmitterBenchmark {
+    private static final long TIME_TO_LIVE = 800L;
+    private static final long FRAME_MILLIS = 16L;
+    private static final int PARTICLE_SIZE = 48;
+
+    @Param({"20", "100", "500"})
+    int mParticlesCount;
+
+    private ParticleEmitter<Particle> mEmitter;
+    private long mTime;
+
+    @Setup
+    public void setUp() {
+        mEmitter = new ParticleEmitter<>(TIME_TO_LIVE, new Random(42));
+        for (int i = 0; i < mParticlesCount; i++) {
+            mEmitter.addParticle(new Particle(PARTICLE_SIZE, PARTICLE_SIZE));
+        }
+        mEmitter.addInitializer(new ScaleInitializer(0.7f, 1.3f));
+        mEmitter.addInitializer(new SpeedModuleAndRangeInitializer(0.09f, 0.21f, 0, 360));
+        mEmitter.addInitializer(new RotationSpeedInitializer(90, 180));
+        mEmitter.addModifier(new AlphaModifier(255, 0, TIME_TO_LIVE - 500, TIME_TO_LIVE));
+        mEmitter.setEmitterRange(500, 580, 300, 340);
+        mEmitter.oneShot(mParticlesCount);
+    }
+
+    /**
+     * Return the whole pool and activate it again
+     */
+    @Benchmark
+    public void activate() {
+        mEmitter.clear();
+        mEmitter.oneShot(mParticlesCount);
+    }
+
+    /**
+     * One frame of all particles being active, time wraps before they expire
+     */
+    @Benchmark
+    public void update() {
+        mTime = (mTime + FRAME_MILLIS) % TIME_TO_LIVE;
+        mEmitter.update(mTime);
+    }
+}
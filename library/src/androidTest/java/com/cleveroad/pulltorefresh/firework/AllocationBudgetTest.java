@@ -0,0 +1,116 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.os.Debug;
+import android.support.annotation.Nullable;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Refreshes twice and checks bytes allocated on the main thread per frame of each phase of
+ * the second refresh, after pools are filled by the first one. Frame drawing and drag updates
+ * are counted, animator callbacks between frames are not.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AllocationBudgetTest implements RefreshAnimationDriver.FrameObserver {
+    private static final DrawOpCounts.Phase[] PHASES = DrawOpCounts.Phase.values();
+
+    /**
+     * Bytes per frame on average, in {@link DrawOpCounts.Phase} order. Smoke bubbles, bubble
+     * bursts and particle systems are reused, so drawing doesn't allocate.
+     */
+    private static final long[] CLASSIC_BUDGETS = {0, 0, 0, 0};
+    /**
+     * Each modern burst starts the animators of its particle systems again and
+     * ValueAnimator#start() copies the listeners list. A burst is shown for about 80 frames, so
+     * it's a few bytes per frame, while particle systems created per burst take kilobytes.
+     */
+    private static final long[] MODERN_BUDGETS = {0, 0, 16, 16};
+
+    private final RefreshAnimationDriver mDriver = new RefreshAnimationDriver(this);
+    private final long[] mAllocatedBytes = new long[PHASES.length];
+    private final long[] mFrameCounts = new long[PHASES.length];
+    private boolean mIsMeasuring;
+
+    @Before
+    public void setUp() {
+        mDriver.setUp();
+    }
+
+    @After
+    public void tearDown() {
+        mDriver.tearDown();
+    }
+
+    @Test
+    public void classicFireworksWithinBudget() {
+        drawRefresh(Configuration.FireworkStyle.CLASSIC, CLASSIC_BUDGETS);
+    }
+
+    @Test
+    public void modernFireworksWithinBudget() {
+        drawRefresh(Configuration.FireworkStyle.MODERN, MODERN_BUDGETS);
+    }
+
+    private void drawRefresh(Configuration.FireworkStyle fireworkStyle, long[] budgets) {
+        mDriver.createDrawable(fireworkStyle);
+        //warm-up fills the pools and resolves shared resources
+        mDriver.refresh();
+        mIsMeasuring = true;
+        mDriver.refresh();
+        mIsMeasuring = false;
+
+        final String report = getReport(budgets);
+        for (DrawOpCounts.Phase phase : PHASES) {
+            assertTrue("No frames of " + phase + "\n" + report, mFrameCounts[phase.ordinal()] > 0);
+        }
+        for (DrawOpCounts.Phase phase : PHASES) {
+            assertTrue("Over budget\n" + report, getBytesPerFrame(phase) <= budgets[phase.ordinal()]);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void onFrameStarted() {
+        if (mIsMeasuring) {
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public void onFrameFinished(@Nullable DrawOpCounts.Phase phase) {
+        if (!mIsMeasuring) {
+            return;
+        }
+        Debug.stopAllocCounting();
+        if (phase != null) {
+            mAllocatedBytes[phase.ordinal()] += Debug.getThreadAllocSize();
+            mFrameCounts[phase.ordinal()]++;
+        }
+    }
+
+    private double getBytesPerFrame(DrawOpCounts.Phase phase) {
+        final long frames = mFrameCounts[phase.ordinal()];
+        return frames == 0 ? 0 : (double) mAllocatedBytes[phase.ordinal()] / frames;
+    }
+
+    private String getReport(long[] budgets) {
+        final StringBuilder builder = new StringBuilder();
+        for (DrawOpCounts.Phase phase : PHASES) {
+            builder.append(phase).append(" (").append(mFrameCounts[phase.ordinal()]).append(" frames): ")
+                    .append(mAllocatedBytes[phase.ordinal()]).append(" bytes, ")
+                    .append(String.format(Locale.US, "%.1f", getBytesPerFrame(phase)))
+                    .append('/').append(budgets[phase.ordinal()]).append(" per frame\n");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.support.annotation.Nullable;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Draws the refresh animation through all its phases into a {@link RecordingCanvas}
+ * and checks canvas operations per frame against the budgets in {@link DrawOpCounts}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DrawOpBudgetTest implements RefreshAnimationDriver.FrameObserver {
+    private final RefreshAnimationDriver mDriver = new RefreshAnimationDriver(this);
+    private final DrawOpCounts mCounts = new DrawOpCounts();
+
+    @Before
+    public void setUp() {
+        mDriver.setUp();
+    }
+
+    @After
+    public void tearDown() {
+        mDriver.tearDown();
+    }
+
+    @Test
+    public void classicFireworksWithinBudget() {
+        drawRefresh(Configuration.FireworkStyle.CLASSIC);
+    }
+
+    @Test
+    public void modernFireworksWithinBudget() {
+        drawRefresh(Configuration.FireworkStyle.MODERN);
+    }
+
+    private void drawRefresh(Configuration.FireworkStyle fireworkStyle) {
+        mDriver.createDrawable(fireworkStyle);
+        mDriver.refresh();
+
+        for (DrawOpCounts.Phase phase : DrawOpCounts.Phase.values()) {
+            assertTrue("No frames of " + phase + "\n" + mCounts, mCounts.getFrameCount(phase) > 0);
+        }
+        assertTrue("Over budget\n" + mCounts, mCounts.isWithinBudget());
+    }
+
+    @Override
+    public void onFrameStarted() {
+    }
+
+    @Override
+    public void onFrameFinished(@Nullable DrawOpCounts.Phase phase) {
+        if (phase != null) {
+            mCounts.add(mDriver.getCanvas());
+            mCounts.finishFrame(phase);
+        }
+    }
+}
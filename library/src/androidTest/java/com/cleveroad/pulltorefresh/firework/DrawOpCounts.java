@@ -0,0 +1,141 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Class {@link DrawOpCounts} contains the max number of canvas operations per frame of the refresh
+ * animation for each phase of it, along with the budgets for them. Counts over the budget mean
+ * the drawing got more expensive. Counts are collected by {@link DrawOpBudgetTest}.
+ */
+final class DrawOpCounts {
+    private static final Phase[] PHASES = Phase.values();
+    private static final Op[] OPS = Op.values();
+
+    /**
+     * Max operations per frame, rows are phases, columns are operations in declaration order.
+     * Update them together with the drawing code.
+     */
+    private static final int[][] BUDGETS = {
+            //DRAW, SAVE, RESTORE, CLIP, PAINT_CHANGE
+            {4, 8, 8, 6, 4},          //DRAG: background, rocket and flame
+            {64, 8, 8, 6, 64},        //LAUNCH: plus rocket smoke
+            {160, 8, 8, 6, 160},      //BURSTS: plus fireworks
+            {160, 8, 8, 6, 160}       //HOLD: fireworks and fading smoke
+    };
+
+    private final int[][] mMaxCounts = new int[PHASES.length][OPS.length];
+    private final long[] mFrameCounts = new long[PHASES.length];
+    private final int[] mCurrentFrameCounts = new int[OPS.length];
+
+    DrawOpCounts() {
+    }
+
+    /**
+     * Add operations recorded by the canvas to the frame being drawn
+     */
+    void add(@NonNull RecordingCanvas canvas) {
+        for (int i = 0; i < OPS.length; i++) {
+            mCurrentFrameCounts[i] += canvas.getCount(OPS[i]);
+        }
+    }
+
+    /**
+     * Keep max counts of the frame being drawn for the phase
+     */
+    void finishFrame(@NonNull Phase phase) {
+        final int[] maxCounts = mMaxCounts[phase.ordinal()];
+        for (int i = 0; i < OPS.length; i++) {
+            maxCounts[i] = Math.max(maxCounts[i], mCurrentFrameCounts[i]);
+            mCurrentFrameCounts[i] = 0;
+        }
+        mFrameCounts[phase.ordinal()]++;
+    }
+
+    /**
+     * @param phase animation phase
+     * @return number of recorded frames of the phase
+     */
+    long getFrameCount(@NonNull Phase phase) {
+        return mFrameCounts[phase.ordinal()];
+    }
+
+    /**
+     * @param phase animation phase
+     * @param op    canvas operation
+     * @return max number of operations per frame of the phase
+     */
+    int getMaxCount(@NonNull Phase phase, @NonNull Op op) {
+        return mMaxCounts[phase.ordinal()][op.ordinal()];
+    }
+
+    /**
+     * @param phase animation phase
+     * @param op    canvas operation
+     * @return max number of operations per frame the phase is expected to make
+     */
+    static int getBudget(@NonNull Phase phase, @NonNull Op op) {
+        return BUDGETS[phase.ordinal()][op.ordinal()];
+    }
+
+    /**
+     * @return true if no phase went over the budget of any operation
+     */
+    boolean isWithinBudget() {
+        for (int i = 0; i < PHASES.length; i++) {
+            for (int j = 0; j < OPS.length; j++) {
+                if (mMaxCounts[i][j] > BUDGETS[i][j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (Phase phase : PHASES) {
+            builder.append(phase).append(" (").append(getFrameCount(phase)).append(" frames):");
+            for (Op op : OPS) {
+                builder.append(' ').append(op).append('=').append(getMaxCount(phase, op))
+                        .append('/').append(getBudget(phase, op));
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Phases of the refresh animation
+     */
+    enum Phase {
+        /**
+         * Refresh view is pulled
+         */
+        DRAG,
+        /**
+         * Rocket flies
+         */
+        LAUNCH,
+        /**
+         * Fireworks burst while the rocket is leaving
+         */
+        BURSTS,
+        /**
+         * Only fireworks are shown until the refresh stops
+         */
+        HOLD
+    }
+
+    /**
+     * Canvas operations
+     */
+    enum Op {
+        DRAW, SAVE, RESTORE, CLIP,
+        /**
+         * Draw with a paint that differs from the previous draw by color, alpha, filter,
+         * shader, transfer mode or style
+         */
+        PAINT_CHANGE
+    }
+}
@@ -0,0 +1,314 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Region;
+import android.graphics.Shader;
+import android.graphics.Xfermode;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Canvas drawing into an offscreen bitmap and counting draw, save, restore and clip operations
+ * along with paint state changes between draws. Counts are collected by {@link DrawOpCounts}.
+ */
+class RecordingCanvas extends Canvas {
+    private final Bitmap mBitmap;
+    private final int[] mCounts = new int[DrawOpCounts.Op.values().length];
+
+    private boolean mHasLastPaint;
+    private Paint mLastPaint;
+    private int mLastColor;
+    private ColorFilter mLastColorFilter;
+    private Shader mLastShader;
+    private Xfermode mLastXfermode;
+    private Paint.Style mLastStyle;
+
+    RecordingCanvas(int width, int height) {
+        this(Bitmap.createBitmap(Math.max(1, width), Math.max(1, height), Bitmap.Config.ARGB_8888));
+    }
+
+    private RecordingCanvas(Bitmap bitmap) {
+        super(bitmap);
+        mBitmap = bitmap;
+    }
+
+    /**
+     * Clear the bitmap and counts before drawing a frame
+     */
+    void begin() {
+        mBitmap.eraseColor(Color.TRANSPARENT);
+        for (int i = 0; i < mCounts.length; i++) {
+            mCounts[i] = 0;
+        }
+        mHasLastPaint = false;
+        mLastPaint = null;
+        mLastColorFilter = null;
+        mLastShader = null;
+        mLastXfermode = null;
+        mLastStyle = null;
+    }
+
+    int getCount(DrawOpCounts.Op op) {
+        return mCounts[op.ordinal()];
+    }
+
+    void release() {
+        mBitmap.recycle();
+    }
+
+    private void count(DrawOpCounts.Op op) {
+        mCounts[op.ordinal()]++;
+    }
+
+    private void countDraw(@Nullable Paint paint) {
+        count(DrawOpCounts.Op.DRAW);
+        final int color = paint == null ? 0 : paint.getColor();
+        final ColorFilter colorFilter = paint == null ? null : paint.getColorFilter();
+        final Shader shader = paint == null ? null : paint.getShader();
+        final Xfermode xfermode = paint == null ? null : paint.getXfermode();
+        final Paint.Style style = paint == null ? null : paint.getStyle();
+        if (mHasLastPaint && paint == mLastPaint && color == mLastColor && colorFilter == mLastColorFilter
+                && shader == mLastShader && xfermode == mLastXfermode && style == mLastStyle) {
+            return;
+        }
+        count(DrawOpCounts.Op.PAINT_CHANGE);
+        mHasLastPaint = true;
+        mLastPaint = paint;
+        mLastColor = color;
+        mLastColorFilter = colorFilter;
+        mLastShader = shader;
+        mLastXfermode = xfermode;
+        mLastStyle = style;
+    }
+
+    /**
+     * Save and restore
+     * *********************************************************************************************
+     */
+    @Override
+    public int save() {
+        count(DrawOpCounts.Op.SAVE);
+        return super.save();
+    }
+
+    @Override
+    public int save(int saveFlags) {
+        count(DrawOpCounts.Op.SAVE);
+        return super.save(saveFlags);
+    }
+
+    @Override
+    public int saveLayer(RectF bounds, Paint paint, int saveFlags) {
+        count(DrawOpCounts.Op.SAVE);
+        return super.saveLayer(bounds, paint, saveFlags);
+    }
+
+    @Override
+    public int saveLayer(float left, float top, float right, float bottom, Paint paint, int saveFlags) {
+        count(DrawOpCounts.Op.SAVE);
+        return super.saveLayer(left, top, right, bottom, paint, saveFlags);
+    }
+
+    @Override
+    public int saveLayerAlpha(RectF bounds, int alpha, int saveFlags) {
+        count(DrawOpCounts.Op.SAVE);
+        return super.saveLayerAlpha(bounds, alpha, saveFlags);
+    }
+
+    @Override
+    public int saveLayerAlpha(float left, float top, float right, float bottom, int alpha, int saveFlags) {
+        count(DrawOpCounts.Op.SAVE);
+        return super.saveLayerAlpha(left, top, right, bottom, alpha, saveFlags);
+    }
+
+    @Override
+    public void restore() {
+        count(DrawOpCounts.Op.RESTORE);
+        super.restore();
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        mCounts[DrawOpCounts.Op.RESTORE.ordinal()] += Math.max(0, getSaveCount() - saveCount);
+        super.restoreToCount(saveCount);
+    }
+
+    /**
+     * Clip
+     * *********************************************************************************************
+     */
+    @Override
+    public boolean clipRect(@NonNull RectF rect, @NonNull Region.Op op) {
+        count(DrawOpCounts.Op.CLIP);
+        return super.clipRect(rect, op);
+    }
+
+    @Override
+    public boolean clipRect(@NonNull Rect rect, @NonNull Region.Op op) {
+        count(DrawOpCounts.Op.CLIP);
+        return super.clipRect(rect, op);
+    }
+
+    @Override
+    public boolean clipRect(@NonNull RectF rect) {
+        count(DrawOpCounts.Op.CLIP);
+        return super.clipRect(rect);
+    }
+
+    @Override
+    public boolean clipRect(@NonNull Rect rect) {
+        count(DrawOpCounts.Op.CLIP);
+        return super.clipRect(rect);
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom, @NonNull Region.Op op) {
+        count(DrawOpCounts.Op.CLIP);
+        return super.clipRect(left, top, right, bottom, op);
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        count(DrawOpCounts.Op.CLIP);
+        return super.clipRect(left, top, right, bottom);
+    }
+
+    @Override
+    public boolean clipRect(int left, int top, int right, int bottom) {
+        count(DrawOpCounts.Op.CLIP);
+        return super.clipRect(left, top, right, bottom);
+    }
+
+    @Override
+    public boolean clipPath(@NonNull Path path, @NonNull Region.Op op) {
+        count(DrawOpCounts.Op.CLIP);
+        return super.clipPath(path, op);
+    }
+
+    @Override
+    public boolean clipPath(@NonNull Path path) {
+        count(DrawOpCounts.Op.CLIP);
+        return super.clipPath(path);
+    }
+
+    /**
+     * Draw
+     * *********************************************************************************************
+     */
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, float left, float top, @Nullable Paint paint) {
+        countDraw(paint);
+        super.drawBitmap(bitmap, left, top, paint);
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, @Nullable Rect src, @NonNull RectF dst, @Nullable Paint paint) {
+        countDraw(paint);
+        super.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, @Nullable Rect src, @NonNull Rect dst, @Nullable Paint paint) {
+        countDraw(paint);
+        super.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, @NonNull Matrix matrix, @Nullable Paint paint) {
+        countDraw(paint);
+        super.drawBitmap(bitmap, matrix, paint);
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawCircle(cx, cy, radius, paint);
+    }
+
+    @Override
+    public void drawOval(@NonNull RectF oval, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawOval(oval, paint);
+    }
+
+    @Override
+    public void drawRect(@NonNull RectF rect, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawRect(rect, paint);
+    }
+
+    @Override
+    public void drawRect(@NonNull Rect r, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawRect(r, paint);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawRect(left, top, right, bottom, paint);
+    }
+
+    @Override
+    public void drawRoundRect(@NonNull RectF rect, float rx, float ry, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawRoundRect(rect, rx, ry, paint);
+    }
+
+    @Override
+    public void drawArc(@NonNull RectF oval, float startAngle, float sweepAngle, boolean useCenter, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawArc(oval, startAngle, sweepAngle, useCenter, paint);
+    }
+
+    @Override
+    public void drawPath(@NonNull Path path, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawPath(path, paint);
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawLine(startX, startY, stopX, stopY, paint);
+    }
+
+    @Override
+    public void drawLines(@NonNull float[] pts, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawLines(pts, paint);
+    }
+
+    @Override
+    public void drawPaint(@NonNull Paint paint) {
+        countDraw(paint);
+        super.drawPaint(paint);
+    }
+
+    @Override
+    public void drawColor(int color) {
+        countDraw(null);
+        super.drawColor(color);
+    }
+
+    @Override
+    public void drawColor(int color, @NonNull PorterDuff.Mode mode) {
+        countDraw(null);
+        super.drawColor(color, mode);
+    }
+
+    @Override
+    public void drawText(@NonNull String text, float x, float y, @NonNull Paint paint) {
+        countDraw(paint);
+        super.drawText(text, x, y, paint);
+    }
+}
@@ -0,0 +1,183 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.test.InstrumentationRegistry;
+import android.view.View;
+
+/**
+ * Drives the refresh drawable through drag, launch, bursts and hold in real time and draws
+ * every frame into a {@link RecordingCanvas} on the main thread the same way the layout views do.
+ * Frames are reported to the {@link FrameObserver} with the phase they belong to.
+ */
+final class RefreshAnimationDriver {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int DRAG_FRAMES = 30;
+    private static final long FRAME_MILLIS = 16L;
+    /**
+     * Long enough for several frames of fireworks bursting while the rocket is still flying
+     */
+    private static final long ROCKET_DURATION_MILLIS = 4000L;
+    /**
+     * Frames this close to a phase change are not counted, the rocket animator
+     * doesn't switch exactly at the expected time
+     */
+    private static final long PHASE_MARGIN_MILLIS = 50L;
+    /**
+     * Fireworks are held after the rocket is gone for this long
+     */
+    private static final long HOLD_MILLIS = 1500L;
+
+    private final FrameObserver mObserver;
+    private FireworkyPullToRefreshLayout mLayout;
+    private FireworkRefreshDrawable mDrawable;
+    private RecordingCanvas mCanvas;
+
+    RefreshAnimationDriver(@NonNull FrameObserver observer) {
+        mObserver = observer;
+    }
+
+    void setUp() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final Context context = InstrumentationRegistry.getTargetContext();
+                mLayout = new FireworkyPullToRefreshLayout(context);
+                mLayout.addView(new View(context));
+                mLayout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                mLayout.layout(0, 0, WIDTH, HEIGHT);
+                mLayout.getConfig().setQualityTier(Configuration.QualityTier.FULL);
+                mLayout.getConfig().setRocketAnimDuration(ROCKET_DURATION_MILLIS);
+                mCanvas = new RecordingCanvas(WIDTH, HEIGHT);
+            }
+        });
+    }
+
+    void tearDown() {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                if (mDrawable != null) {
+                    mDrawable.release();
+                }
+                mCanvas.release();
+            }
+        });
+    }
+
+    @NonNull
+    RecordingCanvas getCanvas() {
+        return mCanvas;
+    }
+
+    /**
+     * Create the drawable, it's kept for all refreshes driven after that
+     */
+    void createDrawable(@NonNull final Configuration.FireworkStyle fireworkStyle) {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mLayout.getConfig().setFireworkStyle(fireworkStyle);
+                mDrawable = new FireworkRefreshDrawable(mLayout, mLayout.getConfig());
+                mDrawable.init();
+                mDrawable.setBounds(0, 0, WIDTH, HEIGHT);
+            }
+        });
+    }
+
+    /**
+     * Pull, launch and hold the fireworks, then stop the refresh
+     */
+    void refresh() {
+        for (int i = 1; i <= DRAG_FRAMES; i++) {
+            final float percent = (float) i / DRAG_FRAMES;
+            runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    mObserver.onFrameStarted();
+                    mDrawable.setPercent(percent, true);
+                    drawFrame();
+                    mObserver.onFrameFinished(DrawOpCounts.Phase.DRAG);
+                }
+            });
+        }
+
+        final long rocketDuration = ROCKET_DURATION_MILLIS;
+        final long[] startTime = new long[1];
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mDrawable.start();
+                startTime[0] = SystemClock.uptimeMillis();
+            }
+        });
+
+        final long endTime = startTime[0] + rocketDuration + HOLD_MILLIS;
+        while (SystemClock.uptimeMillis() < endTime) {
+            //animators are updated on the main thread between frames
+            SystemClock.sleep(FRAME_MILLIS);
+            runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    mObserver.onFrameStarted();
+                    drawFrame();
+                    mObserver.onFrameFinished(getPhase(SystemClock.uptimeMillis() - startTime[0], rocketDuration));
+                }
+            });
+        }
+
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mDrawable.stop();
+            }
+        });
+    }
+
+    /**
+     * Draw background and animated content the same way the layout views do
+     */
+    private void drawFrame() {
+        mCanvas.begin();
+        mDrawable.draw(mCanvas);
+        mDrawable.getAnimatedContentDrawable().draw(mCanvas);
+    }
+
+    @Nullable
+    private static DrawOpCounts.Phase getPhase(long elapsed, long rocketDuration) {
+        //rocket animator has the default accelerate-decelerate interpolator
+        final double burstsStartFraction = Math.acos(1.0 - 2.0 * FireworkRefreshDrawable.FIREWORKS_START_ROCKET_PERCENT) / Math.PI;
+        final long burstsStart = (long) (rocketDuration * burstsStartFraction);
+        if (isNear(elapsed, burstsStart) || isNear(elapsed, rocketDuration)) {
+            return null;
+        }
+        if (elapsed < burstsStart) {
+            return DrawOpCounts.Phase.LAUNCH;
+        }
+        return elapsed < rocketDuration ? DrawOpCounts.Phase.BURSTS : DrawOpCounts.Phase.HOLD;
+    }
+
+    private static boolean isNear(long time, long phaseChange) {
+        return Math.abs(time - phaseChange) < PHASE_MARGIN_MILLIS;
+    }
+
+    private static void runOnMainSync(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+
+    /**
+     * Called on the main thread around every frame
+     */
+    interface FrameObserver {
+        void onFrameStarted();
+
+        /**
+         * @param phase phase of the frame, null if it's too close to a phase change to count it
+         */
+        void onFrameFinished(@Nullable DrawOpCounts.Phase phase);
+    }
+}
@@ -0,0 +1,154 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs {@link FireworkyPullToRefreshLayout.OnAsyncRefreshListener} on the executor and stops
+ * the refresh once it returns, but not before the min duration has passed.
+ * Refresh which takes longer than the timeout is stopped without waiting for it.
+ * Refresh started while the listener from the previous one is still running joins it instead of
+ * running the listener again, unless joining is disabled.
+ */
+class AsyncRefreshRunner {
+    private final FireworkyPullToRefreshLayout mLayout;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mStopRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mIsWaiting = false;
+            mMainHandler.removeCallbacks(this);
+            mLayout.setRefreshing(false);
+        }
+    };
+
+    @Nullable
+    private FireworkyPullToRefreshLayout.OnAsyncRefreshListener mListener;
+    @Nullable
+    private Executor mExecutor;
+    private long mTimeoutMillis;
+    private long mMinDurationMillis;
+    private long mStartTimeMillis;
+    private boolean mIsJoinEnabled = true;
+    /**
+     * The latest listener run, null once it has returned
+     */
+    @Nullable
+    private Runnable mRunInFlight;
+    /**
+     * The refresh is shown until the listener returns
+     */
+    private boolean mIsWaiting;
+
+    AsyncRefreshRunner(@NonNull FireworkyPullToRefreshLayout layout) {
+        mLayout = layout;
+    }
+
+    void setListener(@Nullable FireworkyPullToRefreshLayout.OnAsyncRefreshListener listener, @Nullable Executor executor) {
+        mListener = listener;
+        mExecutor = executor;
+    }
+
+    /**
+     * @param timeoutMillis max refresh duration, 0 for no timeout
+     */
+    void setTimeout(long timeoutMillis) {
+        mTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @param minDurationMillis min refresh duration, so fast refresh doesn't cut the animation
+     */
+    void setMinDuration(long minDurationMillis) {
+        mMinDurationMillis = minDurationMillis;
+    }
+
+    /**
+     * @param joinEnabled whether refresh started while the previous listener is running waits
+     *                    for it instead of running the listener again
+     */
+    void setJoinEnabled(boolean joinEnabled) {
+        mIsJoinEnabled = joinEnabled;
+    }
+
+    /**
+     * Run the listener on the executor or join the running one. Must be called from the main thread.
+     */
+    void start() {
+        final FireworkyPullToRefreshLayout.OnAsyncRefreshListener listener = mListener;
+        final Executor executor = mExecutor;
+        if (listener == null || executor == null) {
+            return;
+        }
+        cancel();
+        mIsWaiting = true;
+        mStartTimeMillis = SystemClock.uptimeMillis();
+        if (mTimeoutMillis > 0) {
+            mMainHandler.postDelayed(mStopRunnable, mTimeoutMillis);
+        }
+        if (mRunInFlight != null && mIsJoinEnabled) {
+            return;
+        }
+        final Runnable finishRunnable = new Runnable() {
+            @Override
+            public void run() {
+                finish(this);
+            }
+        };
+        mRunInFlight = finishRunnable;
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        listener.onRefresh();
+                    } finally {
+                        mMainHandler.post(finishRunnable);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            finish(finishRunnable);
+        }
+    }
+
+    /**
+     * @return whether the refresh is going to be stopped by the listener return or the timeout
+     */
+    boolean isWaiting() {
+        return mIsWaiting;
+    }
+
+    /**
+     * Stop waiting for the running listener, its completion won't stop the refresh.
+     * Must be called from the main thread.
+     */
+    void cancel() {
+        mIsWaiting = false;
+        mMainHandler.removeCallbacks(mStopRunnable);
+    }
+
+    private void finish(Runnable run) {
+        if (run != mRunInFlight) {
+            //superseded by a newer run
+            return;
+        }
+        mRunInFlight = null;
+        if (!mIsWaiting) {
+            return;
+        }
+        mMainHandler.removeCallbacks(mStopRunnable);
+        final long remainingMillis = mStartTimeMillis + mMinDurationMillis - SystemClock.uptimeMillis();
+        if (remainingMillis > 0) {
+            mMainHandler.postDelayed(mStopRunnable, remainingMillis);
+        } else {
+            mStopRunnable.run();
+        }
+    }
+}
@@ -2,122 +2,101 @@ package com.cleveroad.pulltorefresh.firework;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
-class ClassicFireworksDrawer implements FireworksDrawer {
+class ClassicFireworksDrawer implements FireworksDrawer, BubbleRenderer {
+    private static final String TRACE_DRAW = "FPTR:ClassicFireworksDrawer.draw";
+    private static final String TRACE_BUBBLES = "FPTR:firework bubbles";
     private static final Random RND = new Random();
     private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
     private final int mMaxFireworksCount;
     private final Configuration mConfiguration;
-    private final List<List<Bubble>> mVisibleFireworksList = new LinkedList<>();
+    private final List<BubbleFirework> mVisibleFireworksList;
+    /**
+     * Finished fireworks, restarted instead of creating new ones
+     */
+    private final List<BubbleFirework> mFinishedFireworksList;
     private int mFireworkBubbleRadius;
+    private Canvas mCanvas;
 
     ClassicFireworksDrawer(@NonNull Configuration configuration, int maxFireworksCount, int bubbleRadius) {
         mConfiguration = configuration;
         mMaxFireworksCount = maxFireworksCount;
         mFireworkBubbleRadius = bubbleRadius;
-    }
-
-    private List<Bubble> getFirework(int width, int height) {
-        List<Bubble> firework = new ArrayList<>(50);
-
-        float fireworkWidth = width / mMaxFireworksCount;
-        float fireworkHeight = height / mMaxFireworksCount;
-
-        float x = RND.nextInt((int) (width - fireworkWidth)) + fireworkWidth / 2f;
-        float y = RND.nextInt((int) (height - fireworkHeight)) + fireworkHeight / 2f;
-
-        Bubble.Builder builder = Bubble.newBuilder()
-                .position(new Bubble.Point(x, y))
-                .dRotationAngle(0.01d);
-
-        int color = getRandomBubbleColor();
-        builder.dPosition(0.f, 0.f).color(color)
-                .radius(mFireworkBubbleRadius * .2f).dRadius(.1f).alpha(255).dAlpha(-1.7f).build(); //center
-
-        color = getRandomBubbleColor();
-        for (int k = 360 / 45; k >= 0; k--) {
-            firework.add(builder
-                    .dPosition(Utils.rotateX(.7f, 0, 0, 0, k * 45), Utils.rotateY(.7f, 0, 0, 0, k * 45))
-                    .radius(mFireworkBubbleRadius * .4f)
-                    .dRadius(-.15f)
-                    .dAlpha(-.8f)
-                    .color(color)
-                    .build());
-        }
-
-        color = getRandomBubbleColor();
-        for (int k = 360 / 30; k >= 0; k--) {
-            firework.add(builder
-                    .dPosition(Utils.rotateX(.5f, 0, 0, 0, k * 30), Utils.rotateY(.5f, 0, 0, 0, k * 30))
-                    .radius(mFireworkBubbleRadius * .2f)
-                    .dRadius(-.1f)
-                    .dAlpha(-.8f)
-                    .color(color)
-                    .build());
-        }
-
-        color = getRandomBubbleColor();
-        for (int k = 360 / 30; k >= 0; k--) {
-            firework.add(builder
-                    .dPosition(Utils.rotateX(.3f, 0, 0, 0, k * 30), Utils.rotateY(.3f, 0, 0, 0, k * 30))
-                    .radius(mFireworkBubbleRadius * .2f)
-                    .dRadius(-.1f)
-                    .dAlpha(-.8f)
-                    .color(color)
-                    .build());
-        }
-
-        return firework;
+        mVisibleFireworksList = new ArrayList<>(maxFireworksCount);
+        mFinishedFireworksList = new ArrayList<>(maxFireworksCount);
     }
 
     @Override
-    public void draw(Canvas canvas, int width, int height) {
+    public void draw(Canvas canvas, int width, int height, float frameSteps) {
         if(mVisibleFireworksList.isEmpty()) {
-            mVisibleFireworksList.add(getFirework(width, height));
+            mVisibleFireworksList.add(createFirework(width, height));
         }
 
+        Tracing.beginSection(TRACE_DRAW);
+        mCanvas = canvas;
+        int bubbles = 0;
         for (int i = 0; i < mVisibleFireworksList.size(); i++) {
-            List<Bubble> firework = mVisibleFireworksList.get(i);
-            boolean isFireworkFinished = true;
-            boolean isNeedToShowNextFirework = true;
-
-            for (Bubble b : firework) {
-                b.incrementRotationAngle();
-                mPaint.setColor(b.getColor());
-                mPaint.setAlpha(b.incrementAlphaAndGet());
-                float radius = b.incrementRadiusAndGet();
-                canvas.drawCircle(b.incrementXAndGet(), b.incrementYAndGet(), radius, mPaint);
-                isFireworkFinished &= b.isInvisible();
-                isNeedToShowNextFirework &= b.getPercent() > 0.65f;
-            }
+            BubbleFirework firework = mVisibleFireworksList.get(i);
+            firework.advance(frameSteps, this);
+            bubbles += firework.getBubbles().size();
 
-            if (isFireworkFinished) {
-                mVisibleFireworksList.remove(i);
+            if (firework.isFinished()) {
+                mFinishedFireworksList.add(mVisibleFireworksList.remove(i));
                 i--;
                 continue;
             }
 
-            if (isNeedToShowNextFirework && mVisibleFireworksList.size() < mMaxFireworksCount) {
-                mVisibleFireworksList.add(getFirework(width, height));
+            if (firework.isNextFireworkDue() && mVisibleFireworksList.size() < mMaxFireworksCount) {
+                mVisibleFireworksList.add(createFirework(width, height));
             }
         }
+        mCanvas = null;
+        Tracing.setCounter(TRACE_BUBBLES, bubbles);
+        Tracing.endSection();
+    }
+
+    @Override
+    public void drawBubble(float x, float y, float radius, int color, int alpha) {
+        mPaint.setColor(color);
+        mPaint.setAlpha(alpha);
+        mCanvas.drawCircle(x, y, radius, mPaint);
+    }
+
+    private BubbleFirework createFirework(int width, int height) {
+        if (mFinishedFireworksList.isEmpty()) {
+            return BubbleFirework.create(RND, width, height, mMaxFireworksCount, mFireworkBubbleRadius,
+                    mConfiguration.getFireworkColors());
+        }
+        final BubbleFirework firework = mFinishedFireworksList.remove(mFinishedFireworksList.size() - 1);
+        firework.restart(RND, width, height, mMaxFireworksCount, mFireworkBubbleRadius,
+                mConfiguration.getFireworkColors());
+        return firework;
     }
 
     @Override
     public void reset() {
+        for (int i = 0; i < mVisibleFireworksList.size(); i++) {
+            mFinishedFireworksList.add(mVisibleFireworksList.get(i));
+        }
         mVisibleFireworksList.clear();
     }
 
-    @ColorInt
-    private int getRandomBubbleColor() {
-        int fireworkColors[] = mConfiguration.getFireworkColors();
-        return fireworkColors[RND.nextInt(fireworkColors.length)];
+    @Override
+    public void pause() {
+        //bubbles are advanced by drawing only, nothing to pause
+    }
+
+    @Override
+    public void resume() {
+    }
+
+    @Override
+    public void prewarm() {
+        //bubbles are plain circles, nothing to prepare
     }
 }
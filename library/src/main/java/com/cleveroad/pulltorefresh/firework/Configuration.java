@@ -10,23 +10,40 @@ import android.support.annotation.ArrayRes;
 import android.support.annotation.ColorInt;
 import android.support.annotation.ColorRes;
 import android.support.annotation.DrawableRes;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.content.ContextCompat;
+import android.util.SparseArray;
 
 
 /**
  * Class {@link Configuration} contains {@link FireworkyPullToRefreshLayout} instance configuration
  * For getting {@link FireworkyPullToRefreshLayout} configuration use {@link FireworkyPullToRefreshLayout#getConfig()} method
+ * Resources set by id are resolved when the refresh animation needs them for the first time.
  */
 public class Configuration {
     private final Context mContext;
     private int[] mFireworkColors;
+    @ArrayRes
+    private int mFireworkColorsRes;
     private long mRocketAnimDuration = 1000L;
     private long mOffsetAnimDuration = 500L;
 
     private Drawable mRocketDrawable;
     private Drawable mFlameDrawable;
     private Drawable mBackgroundDrawable;
+    @DrawableRes
+    private int mRocketDrawableRes;
+    @DrawableRes
+    private int mFlameDrawableRes;
+    @DrawableRes
+    private int mBackgroundDrawableRes;
+    private final SparseArray<Bitmap> mStarBitmaps = new SparseArray<>();
     private FireworkStyle mFireworkStyle;
+    private QualityTier mQualityTier;
+    private int mFrameRateCap;
+    private TargetMovementMode mTargetMovementMode;
 
     Configuration(Context context) {
         mContext = context;
@@ -36,6 +53,7 @@ public class Configuration {
         setBackgroundColor(Color.BLACK);
         setRocketAnimDuration(500L);
         mFireworkStyle = FireworkStyle.CLASSIC;
+        mTargetMovementMode = TargetMovementMode.RELAYOUT;
     }
 
     /**
@@ -43,6 +61,8 @@ public class Configuration {
      * @param rocketDrawable drawable of rocket
      */
     void setRocket(Drawable rocketDrawable) {
+        releaseRocket();
+        mRocketDrawableRes = 0;
         mRocketDrawable = rocketDrawable;
     }
 
@@ -59,18 +79,32 @@ public class Configuration {
      * @param fireworkDrawableRes drawable resource id of rocket
      */
     void setRocket(@DrawableRes int fireworkDrawableRes) {
-        mRocketDrawable = ContextCompat.getDrawable(mContext, fireworkDrawableRes);
+        releaseRocket();
+        mRocketDrawable = null;
+        mRocketDrawableRes = fireworkDrawableRes;
     }
 
     Drawable getRocketDrawable() {
+        if (mRocketDrawable == null) {
+            mRocketDrawable = SharedResources.acquireDrawable(mContext, mRocketDrawableRes);
+        }
         return mRocketDrawable;
     }
 
+    private void releaseRocket() {
+        if (mRocketDrawableRes != 0 && mRocketDrawable != null) {
+            SharedResources.release(mContext, mRocketDrawableRes);
+            mRocketDrawable = null;
+        }
+    }
+
     /**
      * Use this method to set flame drawable
      * @param flameDrawable drawable of rocket flame
      */
     void setFlame(Drawable flameDrawable) {
+        releaseFlame();
+        mFlameDrawableRes = 0;
         mFlameDrawable = flameDrawable;
     }
 
@@ -87,18 +121,32 @@ public class Configuration {
      * @param flameDrawableRes drawable resource id of rocket flame
      */
     void setFlame(@DrawableRes int flameDrawableRes) {
-        mFlameDrawable = ContextCompat.getDrawable(mContext, flameDrawableRes);
+        releaseFlame();
+        mFlameDrawable = null;
+        mFlameDrawableRes = flameDrawableRes;
     }
 
     Drawable getFlameDrawable() {
+        if (mFlameDrawable == null) {
+            mFlameDrawable = SharedResources.acquireDrawable(mContext, mFlameDrawableRes);
+        }
         return mFlameDrawable;
     }
 
+    private void releaseFlame() {
+        if (mFlameDrawableRes != 0 && mFlameDrawable != null) {
+            SharedResources.release(mContext, mFlameDrawableRes);
+            mFlameDrawable = null;
+        }
+    }
+
     /**
      * Use this method to set background drawable
      * @param backgroundDrawable drawable of background
      */
     public void setBackground(Drawable backgroundDrawable) {
+        releaseBackground();
+        mBackgroundDrawableRes = 0;
         mBackgroundDrawable = backgroundDrawable;
     }
 
@@ -115,7 +163,9 @@ public class Configuration {
      * @param backgroundDrawableRes drawable resource id of background
      */
     public void setBackground(@DrawableRes int backgroundDrawableRes) {
-        mBackgroundDrawable = ContextCompat.getDrawable(mContext, backgroundDrawableRes);
+        releaseBackground();
+        mBackgroundDrawable = null;
+        mBackgroundDrawableRes = backgroundDrawableRes;
     }
 
     /**
@@ -135,12 +185,47 @@ public class Configuration {
     }
 
     Drawable getBackgroundDrawable() {
+        if (mBackgroundDrawable == null) {
+            mBackgroundDrawable = SharedResources.acquireDrawable(mContext, mBackgroundDrawableRes);
+        }
         return mBackgroundDrawable;
     }
 
+    private void releaseBackground() {
+        if (mBackgroundDrawableRes != 0 && mBackgroundDrawable != null) {
+            SharedResources.release(mContext, mBackgroundDrawableRes);
+            mBackgroundDrawable = null;
+        }
+    }
+
+    /**
+     * @param tint firework color
+     * @return star particle bitmap tinted by the color or null if star isn't a bitmap
+     */
+    @Nullable
+    Bitmap getStarBitmap(@ColorInt int tint) {
+        Bitmap starBitmap = mStarBitmaps.get(tint);
+        if (starBitmap == null) {
+            starBitmap = SharedResources.acquireTintedBitmap(mContext, R.drawable.ptr_star_white, tint);
+            if (starBitmap == null) {
+                SharedResources.release(mContext, R.drawable.ptr_star_white, tint);
+                return null;
+            }
+            mStarBitmaps.put(tint, starBitmap);
+        }
+        return starBitmap;
+    }
+
+    private void releaseStars() {
+        for (int i = 0; i < mStarBitmaps.size(); i++) {
+            SharedResources.release(mContext, R.drawable.ptr_star_white, mStarBitmaps.keyAt(i));
+        }
+        mStarBitmaps.clear();
+    }
+
     int[] getFireworkColors() {
         if (mFireworkColors == null) {
-            mFireworkColors = mContext.getResources().getIntArray(R.array.ptr_defColorSet);
+            mFireworkColors = SharedResources.acquireIntArray(mContext, mFireworkColorsRes);
         }
         return mFireworkColors;
     }
@@ -150,6 +235,12 @@ public class Configuration {
      * @param fireworkColors colors of fireworks
      */
     public void setFireworkColors(int fireworkColors[]) {
+        releaseFireworkColors();
+        if (fireworkColors != null) {
+            mFireworkColorsRes = 0;
+        } else if (mFireworkColorsRes == 0) {
+            mFireworkColorsRes = R.array.ptr_defColorSet;
+        }
         mFireworkColors = fireworkColors;
     }
 
@@ -158,7 +249,38 @@ public class Configuration {
      * @param fireworkColorsResources color array resource id of fireworks
      */
     public void setFireworkColors(@ArrayRes int fireworkColorsResources) {
-        mFireworkColors = mContext.getResources().getIntArray(fireworkColorsResources);
+        releaseFireworkColors();
+        mFireworkColorsRes = fireworkColorsResources;
+    }
+
+    private void releaseFireworkColors() {
+        if (mFireworkColorsRes != 0 && mFireworkColors != null) {
+            SharedResources.release(mContext, mFireworkColorsRes);
+        }
+        mFireworkColors = null;
+    }
+
+    /**
+     * Resolve resources set by id
+     */
+    void prewarm() {
+        getRocketDrawable();
+        getFlameDrawable();
+        getBackgroundDrawable();
+        getFireworkColors();
+    }
+
+    /**
+     * Release shared resources, they are acquired again when needed
+     */
+    void release() {
+        releaseRocket();
+        releaseFlame();
+        releaseBackground();
+        releaseStars();
+        if (mFireworkColorsRes != 0) {
+            releaseFireworkColors();
+        }
     }
 
     long getRocketAnimDuration() {
@@ -189,6 +311,86 @@ public class Configuration {
         return mOffsetAnimDuration;
     }
 
+    /**
+     * Use this method to force animation quality tier
+     * @param qualityTier quality tier or null to select it automatically from animator duration
+     *                    scale, power save mode and thermal status (by default)
+     */
+    public void setQualityTier(@Nullable QualityTier qualityTier) {
+        mQualityTier = qualityTier;
+    }
+
+    /**
+     * @return quality tier set by {@link #setQualityTier(QualityTier)} or selected automatically
+     */
+    @NonNull
+    QualityTier getQualityTier() {
+        return mQualityTier != null ? mQualityTier : QualityTierDetector.get(mContext);
+    }
+
+    /**
+     * Use this method to limit frame rate of the running refresh animation.
+     * Animation speed doesn't depend on the frame rate.
+     * @param frameRateCap max frames per second, 0 for no limit (by default)
+     */
+    public void setFrameRateCap(@IntRange(from = 0) int frameRateCap) {
+        if (frameRateCap < 0) {
+            throw new IllegalArgumentException("Frame rate cap can't be negative");
+        }
+        mFrameRateCap = frameRateCap;
+    }
+
+    int getFrameRateCap() {
+        return mFrameRateCap;
+    }
+
+    /**
+     * Use this method to select how the pulled content view is moved.
+     * Applied from the next pull, the view isn't moved while the mode is changed.
+     * @param targetMovementMode target movement mode, {@link TargetMovementMode#RELAYOUT} by default
+     */
+    public void setTargetMovementMode(@NonNull TargetMovementMode targetMovementMode) {
+        mTargetMovementMode = targetMovementMode;
+    }
+
+    @NonNull
+    TargetMovementMode getTargetMovementMode() {
+        return mTargetMovementMode;
+    }
+
+    /**
+     * Ways to move the pulled content view
+     */
+    public enum TargetMovementMode {
+        /**
+         * View is moved by its layout position and padding, it's laid out again on every frame
+         */
+        RELAYOUT,
+        /**
+         * View is moved by translation on top of its own translationY and is laid out again
+         * only when the refresh hold position is reached and left
+         */
+        TRANSLATION
+    }
+
+    /**
+     * Animation quality tiers
+     */
+    public enum QualityTier {
+        /**
+         * All animation effects
+         */
+        FULL,
+        /**
+         * Single firework at a time, no rocket smoke and frame rate limited to 30 fps
+         */
+        REDUCED,
+        /**
+         * Static rocket without flame blinking, smoke and fireworks
+         */
+        MINIMAL
+    }
+
     /**
      * Firework styles
      */
@@ -6,19 +6,24 @@ import android.animation.PropertyValuesHolder;
 import android.animation.ValueAnimator;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.ColorFilter;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.PixelFormat;
 import android.graphics.Region;
 import android.graphics.drawable.Drawable;
 import android.support.annotation.FloatRange;
 import android.support.annotation.NonNull;
-import android.view.View;
+import android.support.annotation.Nullable;
 import android.view.animation.DecelerateInterpolator;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 import static com.cleveroad.pulltorefresh.firework.Configuration.FireworkStyle;
+import static com.cleveroad.pulltorefresh.firework.Configuration.QualityTier;
 
 
 class FireworkRefreshDrawable extends BaseRefreshDrawable {
@@ -26,14 +31,53 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
 
     private final Configuration mConfig;
     private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    private final Path mPath = new Path();
+    /**
+     * Background and animated content are drawn by different views, each pass builds its own
+     * curve path, so neither depends on the other being drawn first
+     */
+    private final Path mBackgroundCurvePath = new Path();
+    private final Path mContentCurvePath = new Path();
+    private final Drawable mAnimatedContentDrawable = new AnimatedContentDrawable();
+    private final FramePacer mFramePacer = new FramePacer(new Runnable() {
+        @Override
+        public void run() {
+            if (mIsBackgroundInvalidationPending) {
+                mIsBackgroundInvalidationPending = false;
+                invalidateSelf();
+            }
+            mAnimatedContentDrawable.invalidateSelf();
+        }
+    });
+
+    /**
+     * Tracing
+     */
+    private static final String TRACE_DRAW_BACKGROUND = "FPTR:draw background";
+    private static final String TRACE_DRAW_ANIMATED_CONTENT = "FPTR:draw animated content";
+    private static final String TRACE_SMOKE_BUBBLES = "FPTR:smoke bubbles";
+    private static final String[] SECTION_TRACE_NAMES;
+    static {
+        final FrameTimings.Section[] sections = FrameTimings.Section.values();
+        SECTION_TRACE_NAMES = new String[sections.length];
+        for (int i = 0; i < sections.length; i++) {
+            SECTION_TRACE_NAMES[i] = "FPTR:" + sections[i].name().toLowerCase(Locale.US);
+        }
+    }
 
     private FireworkyPullToRefreshLayout mParent;
+    @Nullable
+    private FrameTimings mFrameTimings;
 
     private boolean mIsAnimationStarted = false;
     private boolean mSkipRocketAnimation = false;
+    /**
+     * Curve animation is canceled by itself because the rocket animation is skipped
+     */
+    private boolean mIsCurveAnimationSkipped;
+    private QualityTier mQualityTier = QualityTier.FULL;
 
     private float mPercent;
+    private boolean mIsBackgroundInvalidationPending;
     private float mPointerPositionX;
     private float mPointerPositionY;
     private int   mScreenWidth;
@@ -60,11 +104,16 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
     private boolean mIsRocketAnimationFinished;
 
     /**
-     * Rocket smoke
+     * Rocket smoke, a puff per bubble radius of the rocket way. Lists grow if it's not enough.
      */
-    private final List<Bubble> mRocketSmokeBubbles = new LinkedList<>();
+    private static final int ROCKET_SMOKE_BUBBLES_CAPACITY = 64;
+    private final List<Bubble> mRocketSmokeBubbles = new ArrayList<>(ROCKET_SMOKE_BUBBLES_CAPACITY);
+    /**
+     * Faded smoke bubbles, reused for the next puffs
+     */
+    private final List<Bubble> mRocketSmokeBubblesPool = new ArrayList<>(ROCKET_SMOKE_BUBBLES_CAPACITY);
     private final Bubble.Builder mRocketSmokeBuilder = Bubble.newBuilder().alpha(80).dAlpha(-0.5f).dRadius(-0.05f);
-    private float[] mPointCache = new float[2];
+    private final float[] mPointCache = new float[2];
 
     /**
      * Flame
@@ -85,11 +134,23 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
     }
     private float mFlameScale = 1;
 
+    /**
+     * Frame pacing
+     */
+    private static final int REDUCED_FRAME_RATE_CAP = 30;
+    private static final float REFERENCE_FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60f;
+    private static final float MAX_FRAME_STEPS = 4f;
+    private long mLastAnimatedFrameNanos;
+    private float mFrameSteps = 1f;
+
     /**
      * Firework
      */
     private static final int MAX_VISIBLE_FIREWORKS_COUNT = 2;
+    private static final int REDUCED_VISIBLE_FIREWORKS_COUNT = 1;
+    static final float FIREWORKS_START_ROCKET_PERCENT = 0.95f;
     private int mFireworkBubbleRadius;
+    private int mFireworksCount;
     private FireworksDrawer mFireworksDrawer;
 
     /**
@@ -100,14 +161,15 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
     private float mCurveTargetPointAnimValue = CURVE_TARGET_POINT_VALUE_NOT_ANIMATED;
     private ValueAnimator mCurveAnimator;
     private ValueAnimator mOffsetAnimator;
+    private boolean mIsOffsetAnimationPending;
 
     /**
      * Constructor
      */
-    FireworkRefreshDrawable(final FireworkyPullToRefreshLayout layout) {
+    FireworkRefreshDrawable(final FireworkyPullToRefreshLayout layout, Configuration config) {
         super(layout);
         mParent = layout;
-        mConfig = new Configuration(getContext());
+        mConfig = config;
 
         layout.post(new Runnable() {
             @Override
@@ -134,47 +196,150 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
                 - mConfig.getFlameDrawable().getIntrinsicHeight() / 2f
                 + mConfig.getRocketDrawable().getIntrinsicHeight() / 10f;
 
-        mTop = -mParent.getTotalDragDistance();
+        setTop(-mParent.getTotalDragDistance());
 
         mFireworkBubbleRadius = (int) (mParent.getTotalDragDistance() * 0.065f);
     }
 
+    /**
+     * Draws curve and background only. They change together with percent and curve animation,
+     * so the host view can keep them in a layer while refresh is running.
+     * Rocket, smoke and fireworks are drawn by {@link #getAnimatedContentDrawable()}.
+     * Vertical offset is applied by the layout as host views translation.
+     */
     @Override
     public void draw(@NonNull Canvas canvas) {
         if (mScreenWidth <= 0) {
             return;
         }
 
+        Tracing.beginSection(TRACE_DRAW_BACKGROUND);
+        drawBackgroundContent(canvas);
+        Tracing.endSection();
+    }
+
+    private void drawBackgroundContent(Canvas canvas) {
         final int saveCount = canvas.save();
 
-        canvas.translate(0, mTop);
-        canvas.clipRect(0, -mTop, mScreenWidth, mParent.getTotalDragDistance());
+        canvas.clipRect(0, 0, mScreenWidth, mParent.getTotalDragDistance());
 
+        long sectionStart = startSection(FrameTimings.Section.CURVE);
         drawCurve(canvas);
+        finishSection(FrameTimings.Section.CURVE, sectionStart);
+
+        sectionStart = startSection(FrameTimings.Section.BACKGROUND);
         drawBackground(canvas);
+        finishSection(FrameTimings.Section.BACKGROUND, sectionStart);
+
+        canvas.restoreToCount(saveCount);
+    }
+
+    private void drawAnimatedContent(Canvas canvas) {
+        if (mScreenWidth <= 0) {
+            return;
+        }
+
+        updateFrameSteps();
+
+        Tracing.beginSection(TRACE_DRAW_ANIMATED_CONTENT);
+        drawAnimatedLayers(canvas);
+        Tracing.endSection();
+
+        //animated content is drawn every frame after the background
+        if (mFrameTimings != null) {
+            mFrameTimings.finishFrame();
+            mParent.dispatchFrameTimings(mFrameTimings);
+        }
+    }
+
+    private void drawAnimatedLayers(Canvas canvas) {
+        final int saveCount = canvas.save();
+
+        //same clip as background
+        canvas.clipRect(0, 0, mScreenWidth, mParent.getTotalDragDistance());
+        updateCurvePath(mContentCurvePath, canvas);
+        canvas.clipPath(mContentCurvePath, Region.Op.DIFFERENCE);
+
+        long sectionStart;
         if(!mSkipRocketAnimation) {
+            sectionStart = startSection(FrameTimings.Section.ROCKET_SMOKE);
             drawRocketSmoke(canvas);
+            finishSection(FrameTimings.Section.ROCKET_SMOKE, sectionStart);
+
+            sectionStart = startSection(FrameTimings.Section.ROCKET);
             drawRocket(canvas);
+            finishSection(FrameTimings.Section.ROCKET, sectionStart);
         }
+        sectionStart = startSection(FrameTimings.Section.FIREWORKS);
         drawFireworks(canvas);
+        finishSection(FrameTimings.Section.FIREWORKS, sectionStart);
 
         canvas.restoreToCount(saveCount);
     }
 
+    /**
+     * Smoke and classic fireworks are moved by a step per frame, so steps are scaled by the time
+     * passed since the previous frame to keep them wall-clock correct at any frame rate.
+     */
+    private void updateFrameSteps() {
+        final long now = System.nanoTime();
+        if (mLastAnimatedFrameNanos == 0) {
+            mFrameSteps = 1f;
+        } else {
+            mFrameSteps = Math.min((now - mLastAnimatedFrameNanos) / REFERENCE_FRAME_NANOS, MAX_FRAME_STEPS);
+        }
+        mLastAnimatedFrameNanos = now;
+    }
+
+    /**
+     * @return frame rate cap for running refresh animation, 0 for no cap
+     */
+    private int getFrameRateCap() {
+        int frameRateCap = mConfig.getFrameRateCap();
+        if (mQualityTier != QualityTier.FULL && (frameRateCap <= 0 || frameRateCap > REDUCED_FRAME_RATE_CAP)) {
+            frameRateCap = REDUCED_FRAME_RATE_CAP;
+        }
+        return frameRateCap;
+    }
+
+    /**
+     * Frame timings
+     * *********************************************************************************************
+     */
+    void setFrameTimings(@Nullable FrameTimings frameTimings) {
+        mFrameTimings = frameTimings;
+    }
+
+    private long startSection(FrameTimings.Section section) {
+        Tracing.beginSection(SECTION_TRACE_NAMES[section.ordinal()]);
+        return mFrameTimings == null ? 0L : System.nanoTime();
+    }
+
+    private void finishSection(FrameTimings.Section section, long sectionStart) {
+        if (mFrameTimings != null) {
+            mFrameTimings.addSectionTime(section, System.nanoTime() - sectionStart);
+        }
+        Tracing.endSection();
+    }
+
     /**
      * Curve
      * *********************************************************************************************
      */
     private void drawCurve(Canvas canvas) {
-        mPath.reset();
-        mPath.moveTo(0, getCurveYStart());
-        mPath.lineTo(getCurveXStart(), getCurveYStart());
-        mPath.quadTo(getCurveTargetPointX(), getCurveTargetPointY(), getCurveXEnd(), getCurveYEnd());
-        mPath.lineTo(getCurveXEnd(), canvas.getWidth());
-        mPath.lineTo(canvas.getWidth(), canvas.getHeight());
-        mPath.lineTo(0, canvas.getHeight());
-        mPath.close();
-        canvas.clipPath(mPath, Region.Op.DIFFERENCE);
+        updateCurvePath(mBackgroundCurvePath, canvas);
+        canvas.clipPath(mBackgroundCurvePath, Region.Op.DIFFERENCE);
+    }
+
+    private void updateCurvePath(Path path, Canvas canvas) {
+        path.reset();
+        path.moveTo(0, getCurveYStart());
+        path.lineTo(getCurveXStart(), getCurveYStart());
+        path.quadTo(getCurveTargetPointX(), getCurveTargetPointY(), getCurveXEnd(), getCurveYEnd());
+        path.lineTo(getCurveXEnd(), canvas.getWidth());
+        path.lineTo(canvas.getWidth(), canvas.getHeight());
+        path.lineTo(0, canvas.getHeight());
+        path.close();
     }
 
     private float getCurveXStart() {
@@ -265,9 +430,9 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
                         + rocketDrawable.getIntrinsicHeight()
         ) * mRocketAnimationPercent;
 
-        canvas.rotate((float) getRocketAngle(),
-                canvas.getWidth() / 2.f,
-                offsetY + rocketDrawable.getIntrinsicHeight() / 2.f);
+        final float rotationAngle = (float) getRocketAngle();
+        final float rotationPivotY = offsetY + rocketDrawable.getIntrinsicHeight() / 2.f;
+        canvas.rotate(rotationAngle, canvas.getWidth() / 2.f, rotationPivotY);
 
         float offsetXDelta = 0;
         if (mIsAnimationStarted) {
@@ -289,23 +454,11 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
             }
             offsetXDelta -= mIgnoredRocketXOffset;
 
-            //rocket smoke
-            final Bubble lastSmokeBubble = mRocketSmokeBubbles.isEmpty() ? null : mRocketSmokeBubbles.get(mRocketSmokeBubbles.size() - 1);
-            int rocketDPositionSign = lastSmokeBubble == null || lastSmokeBubble.getDPosition().getX() < 0 ? 1 : -1;
-
-            float[] points = mapPoints(
-                    canvas,
-                    offsetX + offsetXDelta + rocketDrawable.getIntrinsicWidth() / 2f,
-                    offsetY + rocketDrawable.getIntrinsicHeight());
-
-            if (lastSmokeBubble == null || points[1] < (lastSmokeBubble.getYPos() - mFireworkBubbleRadius)) {
-                mRocketSmokeBuilder
-                        .position(points[0], points[1])
-                        .dPosition(0.05f * rocketDPositionSign, 0.05f)
-                        .radius(mFireworkBubbleRadius / 2f)
-                        .color(Color.WHITE);
-
-                mRocketSmokeBubbles.add(mRocketSmokeBuilder.build());
+            if (mQualityTier == QualityTier.FULL) {
+                emitRocketSmoke(offsetX + offsetXDelta + rocketDrawable.getIntrinsicWidth() / 2f,
+                        offsetY + rocketDrawable.getIntrinsicHeight(),
+                        rocketScale, canvas.getWidth() / 2.f, canvas.getHeight() / 2.f,
+                        rotationAngle, canvas.getWidth() / 2.f, rotationPivotY);
             }
         }
 
@@ -328,6 +481,29 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
         canvas.restore();
     }
 
+    private void emitRocketSmoke(float tailX, float tailY,
+                                 float scale, float scalePivotX, float scalePivotY,
+                                 float degrees, float rotationPivotX, float rotationPivotY) {
+        final Bubble lastSmokeBubble = mRocketSmokeBubbles.isEmpty() ? null : mRocketSmokeBubbles.get(mRocketSmokeBubbles.size() - 1);
+        int rocketDPositionSign = lastSmokeBubble == null || lastSmokeBubble.getDPosition().getX() < 0 ? 1 : -1;
+
+        float[] points = mapRocketPoint(tailX, tailY,
+                scale, scalePivotX, scalePivotY,
+                degrees, rotationPivotX, rotationPivotY);
+
+        if (lastSmokeBubble == null || points[1] < (lastSmokeBubble.getYPos() - mFireworkBubbleRadius)) {
+            mRocketSmokeBuilder
+                    .position(points[0], points[1])
+                    .dPosition(0.05f * rocketDPositionSign, 0.05f)
+                    .radius(mFireworkBubbleRadius / 2f)
+                    .color(Color.WHITE);
+
+            mRocketSmokeBubbles.add(mRocketSmokeBubblesPool.isEmpty()
+                    ? mRocketSmokeBuilder.build()
+                    : mRocketSmokeBuilder.buildInto(mRocketSmokeBubblesPool.remove(mRocketSmokeBubblesPool.size() - 1)));
+        }
+    }
+
     /**
      * Rocket flying
      * *********************************************************************************************
@@ -367,32 +543,41 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
 
 
     private void drawFireworks(final Canvas canvas) {
-        if (!mIsAnimationStarted || mRocketAnimationPercent < 0.95f) {
+        if (!mIsAnimationStarted || mRocketAnimationPercent < FIREWORKS_START_ROCKET_PERCENT || mQualityTier == QualityTier.MINIMAL) {
             return;
         }
 
-        mFireworksDrawer.draw(canvas, canvas.getWidth(), (int) getCurveYStart());
+        mFireworksDrawer.draw(canvas, canvas.getWidth(), (int) getCurveYStart(), mFrameSteps);
     }
 
     private void drawRocketSmoke(Canvas canvas) {
         boolean isSmokeInvisible = true;
-        for(Bubble b : mRocketSmokeBubbles) {
+        for (int i = 0; i < mRocketSmokeBubbles.size(); i++) {
+            final Bubble b = mRocketSmokeBubbles.get(i);
             mPaint.setColor(b.getColor());
-            mPaint.setAlpha(b.incrementAlphaAndGet());
-            canvas.drawCircle(b.incrementXAndGet(), b.incrementYAndGet(), b.incrementRadiusAndGet(), mPaint);
+            mPaint.setAlpha(b.incrementAlphaAndGet(mFrameSteps));
+            canvas.drawCircle(b.incrementXAndGet(mFrameSteps), b.incrementYAndGet(mFrameSteps), b.incrementRadiusAndGet(mFrameSteps), mPaint);
             isSmokeInvisible &= b.isInvisible();
         }
 
         if(isSmokeInvisible) {
-            mRocketSmokeBubbles.clear();
+            recycleRocketSmoke();
         }
+        Tracing.setCounter(TRACE_SMOKE_BUBBLES, mRocketSmokeBubbles.size());
+    }
+
+    private void recycleRocketSmoke() {
+        for (int i = 0; i < mRocketSmokeBubbles.size(); i++) {
+            mRocketSmokeBubblesPool.add(mRocketSmokeBubbles.get(i));
+        }
+        mRocketSmokeBubbles.clear();
     }
 
     @Override
     public void setPercent(float percent, boolean invalidate) {
         setPercent(percent);
         if (invalidate) {
-            invalidateSelf();
+            invalidateAll();
         }
     }
 
@@ -405,37 +590,65 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
     }
 
     private void setPercent(float percent) {
+        if (!mIsAnimationStarted && Float.compare(mPercent, 0f) == 0 && Float.compare(percent, 0f) != 0) {
+            //pull or refresh is starting, the tier is kept until the animation is over
+            mQualityTier = mConfig.getQualityTier();
+        }
         mPercent = percent;
-        if(Float.compare(percent, 0f) == 0 && mFlameAnimator.isRunning()) {
+        if((Float.compare(percent, 0f) == 0 || mQualityTier == QualityTier.MINIMAL) && mFlameAnimator.isRunning()) {
             mFlameAnimator.cancel();
-        } else if(!mFlameAnimator.isRunning()) {
+            mFlameScale = 1;
+        } else if(Float.compare(percent, 0f) != 0 && mQualityTier != QualityTier.MINIMAL
+                && !mFlameAnimator.isRunning() && isVisible()) {
             mFlameAnimator.start();
         }
     }
 
     @Override
     public void offsetTopAndBottom(int offset) {
-        mTop += offset;
-        invalidateSelf();
+        setTop(mTop + offset);
     }
 
     void setOffsetTopAndBottom(int offsetTop) {
-        mTop = offsetTop;
-        invalidateSelf();
+        setTop(offsetTop);
+    }
+
+    private void setTop(int top) {
+        mTop = top;
+        mParent.setRefreshViewOffsetTop(top);
+        if (!mSkipRocketAnimation && !mIsRocketAnimationFinished) {
+            //rocket keeps its place on screen regardless of the offset
+            invalidateAnimatedContent();
+        }
     }
 
     @Override
     public void start() {
         resetOrigins();
         mIsAnimationStarted = true;
+        mIsOffsetAnimationPending = false;
+
+        final int frameRateCap = getFrameRateCap();
+        mFramePacer.setFrameRateCap(frameRateCap);
+        mFramePacer.reset();
+        mParent.setRefreshViewsFrameRate(frameRateCap > 0 ? frameRateCap : Float.NaN);
+
         mCurveAnimator.start();
-        mRocketAnimator.start();
+        if (mQualityTier != QualityTier.MINIMAL) {
+            mRocketAnimator.start();
+        }
+        if (!isVisible()) {
+            pauseAnimations();
+        }
     }
 
     @Override
     public void stop() {
         mIsAnimationStarted = false;
         mSkipRocketAnimation = false;
+        mFramePacer.setFrameRateCap(0);
+        mFramePacer.cancel();
+        mParent.setRefreshViewsFrameRate(Float.NaN);
         cancelAnimation();
         resetOrigins();
     }
@@ -444,12 +657,89 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
      * Cancel animation without reset to start positions
      */
     void cancelAnimation() {
+        mIsOffsetAnimationPending = false;
         if (mRocketAnimator != null) {
             mRocketAnimator.cancel();
         }
         if (mCurveAnimator != null) {
             mCurveAnimator.cancel();
         }
+        if (mOffsetAnimator != null) {
+            mOffsetAnimator.cancel();
+        }
+    }
+
+    /**
+     * Stop everything which keeps running or referencing the layout while it's detached:
+     * animators, particle systems with their timers and frame requests. The target keeps
+     * the final position of the offset animation. Running refresh is restarted by the layout
+     * on reattach.
+     */
+    void release() {
+        if (mOffsetAnimator != null && mOffsetAnimator.isStarted()) {
+            mOffsetAnimator.end();
+        }
+        stop();
+    }
+
+    /**
+     * Animation started before the refresh is confirmed doesn't move the target, the move
+     * starts when the refresh is confirmed.
+     */
+    void confirmStart() {
+        if (mIsOffsetAnimationPending) {
+            mIsOffsetAnimationPending = false;
+            startOffsetAnimation();
+        }
+    }
+
+    private void startOffsetAnimation() {
+        if (mParent.getTargetView() != null) {
+            mOffsetAnimator.setIntValues(mParent.getTargetOffsetTop(), (int) getCurveYStart());
+            mOffsetAnimator.start();
+        }
+    }
+
+    /**
+     * Pauses all animators and particle systems while the drawable can't be seen and
+     * resumes them from the same point once it becomes visible again.
+     */
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        final boolean changed = super.setVisible(visible, restart);
+        if (changed) {
+            if (visible) {
+                resumeAnimations();
+            } else {
+                pauseAnimations();
+            }
+        }
+        return changed;
+    }
+
+    private void pauseAnimations() {
+        //flame blinking is stateless, so it's cheaper to stop it than to keep it paused
+        mFlameAnimator.cancel();
+        mFramePacer.cancel();
+        Utils.pauseAnimator(mRocketAnimator);
+        Utils.pauseAnimator(mCurveAnimator);
+        Utils.pauseAnimator(mOffsetAnimator);
+        if (mFireworksDrawer != null) {
+            mFireworksDrawer.pause();
+        }
+    }
+
+    private void resumeAnimations() {
+        mFramePacer.reset();
+        mLastAnimatedFrameNanos = 0;
+        Utils.resumeAnimator(mRocketAnimator);
+        Utils.resumeAnimator(mCurveAnimator);
+        Utils.resumeAnimator(mOffsetAnimator);
+        if (mFireworksDrawer != null) {
+            mFireworksDrawer.resume();
+        }
+        setPercent(mPercent);
+        invalidateAll();
     }
 
     @Override
@@ -505,7 +795,9 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
 
                 float maxDy = mParent.getTotalDragDistance() * (2f - CURVE_VERTICAL_POINT_PERCENT - Math.min(mPercent, 1.0f));
                 mCurveTargetPointAnimValue = !mSkipRocketAnimation ? -(float) (maxDy * Math.cos(value) * force) : 0f;
+                invalidateAll();
                 if (mSkipRocketAnimation) {
+                    mIsCurveAnimationSkipped = true;
                     valueAnimator.cancel();
                 }
             }
@@ -513,12 +805,31 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
 
         //after curve animation starting offset animation
         mCurveAnimator.addListener(new AnimatorListenerAdapter() {
+            private boolean mIsCanceled;
+
+            @Override
+            public void onAnimationStart(Animator animation) {
+                mIsCanceled = false;
+            }
+
+            @Override
+            public void onAnimationCancel(Animator animation) {
+                mIsCanceled = true;
+            }
+
             @Override
             public void onAnimationEnd(Animator animation) {
-                View targetView = mParent.getTargetView();
-                if(targetView != null) {
-                    mOffsetAnimator.setIntValues(targetView.getTop(), (int) getCurveYStart());
-                    mOffsetAnimator.start();
+                mParent.updateRefreshViewLayerType();
+                final boolean isSkipped = mIsCurveAnimationSkipped;
+                mIsCurveAnimationSkipped = false;
+                if (mIsCanceled && !isSkipped) {
+                    return;
+                }
+                if (mParent.isRefreshing()) {
+                    startOffsetAnimation();
+                } else {
+                    //speculative start, the target is still dragged
+                    mIsOffsetAnimationPending = true;
                 }
             }
         });
@@ -534,10 +845,28 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
         mOffsetAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
             @Override
             public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                View targetView = mParent.getTargetView();
-                if(targetView != null) {
-                    //noinspection ResourceType
-                    targetView.setTop(mSkipRocketAnimation ? (int) getCurveYStart() : (Integer) valueAnimator.getAnimatedValue());
+                //noinspection ResourceType
+                mParent.moveTargetTopTo(mSkipRocketAnimation ? (int) getCurveYStart() : (Integer) valueAnimator.getAnimatedValue());
+            }
+        });
+        //translated target is laid out once in the end
+        mOffsetAnimator.addListener(new AnimatorListenerAdapter() {
+            private boolean mIsCanceled;
+
+            @Override
+            public void onAnimationStart(Animator animation) {
+                mIsCanceled = false;
+            }
+
+            @Override
+            public void onAnimationCancel(Animator animation) {
+                mIsCanceled = true;
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (!mIsCanceled) {
+                    mParent.setTargetTopInset((int) getCurveYStart());
                 }
             }
         });
@@ -547,14 +876,41 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
         return mConfig;
     }
 
+    /**
+     * @return drawable for rocket, smoke and fireworks, they are drawn over the background
+     */
+    Drawable getAnimatedContentDrawable() {
+        return mAnimatedContentDrawable;
+    }
+
+    /**
+     * @return true when background and curve are not going to change until percent does:
+     * pull is complete and curve animation is over
+     */
+    boolean isBackgroundSettled() {
+        return mPercent >= 1f && (mCurveAnimator == null || !mCurveAnimator.isRunning());
+    }
+
     private float setVariable(float value) {
-        invalidateSelf();
+        invalidateAnimatedContent();
         return value;
     }
 
+    /**
+     * Invalidation is paced by the frame rate cap while refresh animation is running
+     */
+    private void invalidateAnimatedContent() {
+        mFramePacer.requestFrame();
+    }
+
+    private void invalidateAll() {
+        mIsBackgroundInvalidationPending = true;
+        mFramePacer.requestFrame();
+    }
+
     private void resetOrigins() {
         setPercent(0f);
-        mRocketSmokeBubbles.clear();
+        recycleRocketSmoke();
         mIgnoredRocketXOffset = 0;
         mRocketAnimationPercent = 0;
         mCurveTargetPointAnimValue = CURVE_TARGET_POINT_VALUE_NOT_ANIMATED;
@@ -566,21 +922,70 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
         }
 
         FireworkStyle fireworkStyle = getConfig().getFireworkStyle();
-        if(fireworkStyle == FireworkStyle.MODERN && !(mFireworksDrawer instanceof ModernFireworksDrawer)) {
-            mFireworksDrawer = new ModernFireworksDrawer(getConfig(), MAX_VISIBLE_FIREWORKS_COUNT, mParent);
-        } else if(fireworkStyle == FireworkStyle.CLASSIC && !(mFireworksDrawer instanceof ClassicFireworksDrawer)) {
-            mFireworksDrawer = new ClassicFireworksDrawer(getConfig(), MAX_VISIBLE_FIREWORKS_COUNT, mFireworkBubbleRadius);
+        int fireworksCount = mQualityTier == QualityTier.REDUCED ? REDUCED_VISIBLE_FIREWORKS_COUNT : MAX_VISIBLE_FIREWORKS_COUNT;
+        boolean isCountChanged = fireworksCount != mFireworksCount;
+        mFireworksCount = fireworksCount;
+        if(fireworkStyle == FireworkStyle.MODERN && (isCountChanged || !(mFireworksDrawer instanceof ModernFireworksDrawer))) {
+            mFireworksDrawer = new ModernFireworksDrawer(getConfig(), fireworksCount, mParent);
+        } else if(fireworkStyle == FireworkStyle.CLASSIC && (isCountChanged || !(mFireworksDrawer instanceof ClassicFireworksDrawer))) {
+            mFireworksDrawer = new ClassicFireworksDrawer(getConfig(), fireworksCount, mFireworkBubbleRadius);
         }
     }
 
-    @SuppressWarnings("unused")
-    private float[] mapPoints(Canvas canvas, float x, float y) {
-        mPointCache[0] = x;
-        mPointCache[1] = y;
-        canvas.getMatrix().mapPoints(mPointCache);
+    /**
+     * Map point from rocket coordinates to drawable coordinates the same way as the canvas
+     * transformations in {@link #drawRocket(Canvas)} do: rotation first, then scale.
+     * @return cached array with mapped x and y
+     */
+    private float[] mapRocketPoint(float x, float y,
+                                   float scale, float scalePivotX, float scalePivotY,
+                                   float degrees, float rotationPivotX, float rotationPivotY) {
+        final float rotatedX = Utils.rotateX(x, y, rotationPivotX, rotationPivotY, degrees);
+        final float rotatedY = Utils.rotateY(x, y, rotationPivotX, rotationPivotY, degrees);
+        mPointCache[0] = scalePivotX + (rotatedX - scalePivotX) * scale;
+        mPointCache[1] = scalePivotY + (rotatedY - scalePivotY) * scale;
         return mPointCache;
     }
 
+    /**
+     * Prewarm
+     * *********************************************************************************************
+     */
+
+    /**
+     * Create fireworks drawer and prepare its resources. Does nothing while the animation is shown.
+     */
+    void prewarmFireworks() {
+        if (mIsAnimationStarted || Float.compare(mPercent, 0f) != 0) {
+            return;
+        }
+        resetOrigins();
+        mFireworksDrawer.prewarm();
+    }
+
+    /**
+     * Run drawing code once and rasterize rocket and flame drawables, so the first frame
+     * of the first pull doesn't pay for it on the main thread.
+     * @param canvas scratch canvas, drawn content is discarded
+     */
+    void prewarmDrawing(@NonNull Canvas canvas) {
+        final int saveCount = canvas.save();
+        canvas.scale(ROCKET_INITIAL_SCALE, ROCKET_INITIAL_SCALE);
+        final Drawable rocketDrawable = mConfig.getRocketDrawable();
+        rocketDrawable.setBounds(0, 0, rocketDrawable.getIntrinsicWidth(), rocketDrawable.getIntrinsicHeight());
+        rocketDrawable.draw(canvas);
+        final Drawable flameDrawable = mConfig.getFlameDrawable();
+        flameDrawable.setBounds(0, 0, flameDrawable.getIntrinsicWidth(), flameDrawable.getIntrinsicHeight());
+        flameDrawable.draw(canvas);
+        canvas.restoreToCount(saveCount);
+
+        //curve and background, timings are not recorded for it
+        final FrameTimings frameTimings = mFrameTimings;
+        mFrameTimings = null;
+        draw(canvas);
+        mFrameTimings = frameTimings;
+    }
+
     void setSkipRocketAnimation(boolean skipRocketAnimation) {
         mSkipRocketAnimation = skipRocketAnimation;
     }
@@ -588,4 +993,24 @@ class FireworkRefreshDrawable extends BaseRefreshDrawable {
     boolean isSkipRocketAnimation() {
         return mSkipRocketAnimation;
     }
+
+    private class AnimatedContentDrawable extends Drawable {
+        @Override
+        public void draw(@NonNull Canvas canvas) {
+            drawAnimatedContent(canvas);
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter colorFilter) {
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+    }
 }
\ No newline at end of file
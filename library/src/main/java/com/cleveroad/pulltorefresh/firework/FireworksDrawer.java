@@ -3,6 +3,16 @@ package com.cleveroad.pulltorefresh.firework;
 import android.graphics.Canvas;
 
 interface FireworksDrawer {
-    void draw(Canvas canvas, int width, int height);
+    /**
+     * @param frameSteps number of reference (60 fps) frames passed since the previous draw
+     */
+    void draw(Canvas canvas, int width, int height, float frameSteps);
     void reset();
+    void pause();
+    void resume();
+
+    /**
+     * Prepare resources used for drawing before the first firework
+     */
+    void prewarm();
 }
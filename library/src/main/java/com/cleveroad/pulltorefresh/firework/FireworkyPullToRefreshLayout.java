@@ -1,26 +1,43 @@
 package com.cleveroad.pulltorefresh.firework;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcelable;
+import android.os.SystemClock;
+import android.support.annotation.FloatRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.NestedScrollingChild;
+import android.support.v4.view.NestedScrollingChildHelper;
+import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParentHelper;
+import android.support.v4.view.VelocityTrackerCompat;
 import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.view.animation.Animation;
 import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Interpolator;
-import android.view.animation.Transformation;
 import android.widget.AbsListView;
 import android.widget.ImageView;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 
 /**
  * The {@link FireworkyPullToRefreshLayout} should be used whenever the user can refresh the
@@ -37,8 +54,9 @@ import android.widget.ImageView;
  * To disable the gesture and progress animation, call
  * {@link FireworkyPullToRefreshLayout#setRefreshing(boolean)} with {@link Boolean#FALSE} param on the view.
  *
- * <p><b>Note!</b> To call the {@link FireworkyPullToRefreshLayout#setRefreshing(boolean)} method
- * you must wrap it in {@link FireworkyPullToRefreshLayout#post(Runnable)}</p>
+ * <p>{@link FireworkyPullToRefreshLayout#setRefreshing(boolean)} can be called from any thread.
+ * Calls from background threads and {@link FireworkyPullToRefreshLayout#requestRefreshing(boolean)}
+ * are applied on the next frame, only the latest of them is applied.</p>
  * <p>
  * This layout should be made the parent of the view that will be refreshed as a result of the
  * gesture and can only support one direct child. This view will also be made the target of the
@@ -47,30 +65,77 @@ import android.widget.ImageView;
  * provided to allow refresh of the content wherever this gesture is used.
  *
  * Supported child views: RecyclerView, ListView, ScrollView, NestedScrollView etc.
+ * Children supporting nested scrolling (RecyclerView, NestedScrollView) are pulled from their
+ * nested scroll callbacks without intercepting touch events.
  * </p>
  */
-public class FireworkyPullToRefreshLayout extends ViewGroup {
+public class FireworkyPullToRefreshLayout extends ViewGroup implements NestedScrollingParent, NestedScrollingChild {
     private static final String EXTRA_SUPER_STATE = "EXTRA_SUPER_STATE";
     private static final String EXTRA_IS_REFRESHING = "EXTRA_IS_REFRESHING";
     private static final int INVALID_POINTER_ID = -1;
 
+    private static final int REFRESH_REQUEST_NONE = 0;
+    private static final int REFRESH_REQUEST_START = 1;
+    private static final int REFRESH_REQUEST_STOP = 2;
+
+    private static final String TRACE_INTERCEPT_TOUCH_EVENT = "FPTR:onInterceptTouchEvent";
+    private static final String TRACE_TOUCH_EVENT = "FPTR:onTouchEvent";
+    private static final String TRACE_DRAG_FRAME = "FPTR:drag frame";
+    private static final String TRACE_MOVE_TO_START = "FPTR:move to start";
+    private static final String TRACE_MOVE_TO_CORRECT = "FPTR:move to correct";
+
     private static final float DRAG_RATE = .85f;
     private static final float DECELERATE_INTERPOLATION_FACTOR = 2.0f;
+    /**
+     * Weight of a new touch sample in the smoothed pointer position
+     */
+    private static final float POINTER_SMOOTHING_FACTOR = .5f;
+    /**
+     * How far ahead pull position is extrapolated by its velocity to predict the release
+     */
+    private static final float RELEASE_PREDICTION_SECONDS = .05f;
+    private static final float DEFAULT_LIKELY_TO_REFRESH_PERCENT = .7f;
 
     private static final int MAX_OFFSET_ANIMATION_DURATION = 700;
     private static final int ROCKET_DRAG_MAX_DISTANCE = 230;
+    /**
+     * Refresh replayed during the cooldown is shown for the rocket flight plus this time
+     */
+    private static final long REPLAYED_REFRESH_HOLD_DURATION = 1000;
+    /**
+     * Fling released during the pull keeps pulling for this time, decelerating linearly
+     */
+    private static final float FLING_PULL_DURATION_SECONDS = .1f;
+    /**
+     * Fling extends the pull by at most this part of the refresh distance
+     */
+    private static final float FLING_PULL_MAX_PERCENT = .3f;
 
     @Nullable
     private OnChildScrollUpCallback mOnChildScrollUpCallback;
 
     private int mTotalDragDistance;
     private int mTouchSlop;
+    private int mMinimumFlingVelocity;
 
     private int mTargetPaddingTop;
     private int mTargetPaddingBottom;
     private int mTargetPaddingRight;
     private int mTargetPaddingLeft;
 
+    /**
+     * Target movement mode of the current pull, selected when the target starts moving
+     */
+    private boolean mIsTargetTranslated;
+    /**
+     * Own target translation, the pull offset is applied on top of it
+     */
+    private float mTargetBaseTranslationY;
+    /**
+     * Part of the translated target offset committed to the layout, the rest is applied as translation
+     */
+    private int mTargetTopInset;
+
     private int   mFrom;
     private int   mCurrentOffsetTop;
     private int   mActivePointerId;
@@ -80,47 +145,125 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
 
     private boolean mIsRefreshing;
     private boolean mIsBeingDragged;
+    private boolean mIsAttachedToWindow;
 
-    private View mTarget;
-    private ImageView mRefreshView;
-    private FireworkRefreshDrawable mRefreshDrawable;
+    private final NestedScrollingParentHelper mNestedScrollingParentHelper;
+    private final NestedScrollingChildHelper mNestedScrollingChildHelper;
+    private final int[] mParentScrollConsumed = new int[2];
+    private final int[] mParentOffsetInWindow = new int[2];
+    private boolean mNestedScrollInProgress;
+    /**
+     * Distance the nested scrolling child couldn't scroll up, it's the pull distance
+     */
+    private float mTotalUnconsumed;
 
-    private final Configuration mConfig;
+    /**
+     * Touch drag is applied once per frame with the latest pointer position
+     */
+    private final FramePacer mDragFramePacer = new FramePacer(new Runnable() {
+        @Override
+        public void run() {
+            if (mIsBeingDragged) {
+                Tracing.beginSection(TRACE_DRAG_FRAME);
+                updateSpeculativeRefresh(applyPendingDrag());
+                Tracing.endSection();
+            }
+        }
+    });
+    private float mPendingMotionY;
 
-    private final Interpolator mDecelerateInterpolator = new DecelerateInterpolator(DECELERATE_INTERPOLATION_FACTOR);
-    private final Animation mAnimateToStartPosition = new Animation() {
+    /**
+     * Latest refresh state requested and not applied yet, written from any thread
+     */
+    private final AtomicInteger mRefreshRequest = new AtomicInteger(REFRESH_REQUEST_NONE);
+    private final AtomicBoolean mIsRefreshRequestPosted = new AtomicBoolean();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final FramePacer mRefreshRequestPacer = new FramePacer(new Runnable() {
         @Override
-        protected void applyTransformation(float interpolatedTime, Transformation t) {
-            moveToStart(interpolatedTime);
+        public void run() {
+            applyRefreshRequest();
         }
-    };
-    private final Animation mAnimateToCorrectPosition = new Animation() {
+    });
+    private final Runnable mRequestRefreshFrameRunnable = new Runnable() {
         @Override
-        protected void applyTransformation(float interpolatedTime, Transformation t) {
-            int targetTop;
-            int endTarget = mTotalDragDistance;
-            targetTop = (mFrom + (int) ((endTarget - mFrom) * interpolatedTime));
-            int offset = targetTop - mTarget.getTop();
-
-            mCurrentDragPercent = mFromDragPercent - (mFromDragPercent - 1.0f) * interpolatedTime;
-            mRefreshDrawable.setPercent(mCurrentDragPercent, false);
-
-            if (mRefreshDrawable.isSkipRocketAnimation()) {
-                mRefreshDrawable.setOffsetTopAndBottom(0);
-                mCurrentOffsetTop = mTarget.getTop();
-            } else {
-                setTargetOffsetTop(offset, false);
-            }
+        public void run() {
+            //cleared before the frame, so requests made after it are posted again
+            mIsRefreshRequestPosted.set(false);
+            mRefreshRequestPacer.requestFrame();
         }
     };
-    private final Animation.AnimationListener mToStartListener = new SimpleAnimationListener() {
+
+    @Nullable
+    private VelocityTracker mVelocityTracker;
+    private boolean mIsSpeculativeRefreshEnabled;
+    /**
+     * Refresh animation is started before the release which is predicted to trigger refresh
+     */
+    private boolean mIsRefreshSpeculative;
+    private boolean mIsSpeculativeRefreshNotified;
+    @Nullable
+    private OnRefreshCanceledListener mOnRefreshCanceledListener;
+
+    @Nullable
+    private OnPullProgressListener mOnPullProgressListener;
+    private float mLikelyToRefreshPercent = DEFAULT_LIKELY_TO_REFRESH_PERCENT;
+    private boolean mIsLikelyToRefreshReported;
+    private float mSmoothedMotionX;
+    private float mSmoothedMotionY;
+
+    private View mTarget;
+    private ImageView mRefreshView;
+    private ImageView mRefreshContentView;
+    /**
+     * Created on the first pull or refresh, see {@link #getRefreshDrawable()}
+     */
+    @Nullable
+    private FireworkRefreshDrawable mRefreshDrawable;
+
+    private final Configuration mConfig;
+
+    private final Interpolator mDecelerateInterpolator = new DecelerateInterpolator(DECELERATE_INTERPOLATION_FACTOR);
+    /**
+     * Offset animators update positions from the animation frame callback, not from the draw pass.
+     * Both start from the current position, so interrupting one with another doesn't jump.
+     */
+    private final ValueAnimator mToStartAnimator = ValueAnimator.ofFloat(0f, 1f);
+    private final ValueAnimator mToCorrectAnimator = ValueAnimator.ofFloat(0f, 1f);
+    /**
+     * Shows the pull extended by a fling, the nested pull is finished after it
+     */
+    private final ValueAnimator mFlingPullAnimator = ValueAnimator.ofFloat(0f, 1f);
+    private float mFlingPullStart;
+    private float mFlingPullDistance;
+    private boolean mIsFlingPullFinishPending;
+    private OnRefreshListener mOnRefreshListener;
+    private final AsyncRefreshRunner mAsyncRefreshRunner = new AsyncRefreshRunner(this);
+    private long mMinRefreshIntervalMillis;
+    /**
+     * Uptime of the last refresh the listeners were notified about, 0 if there wasn't any
+     */
+    private long mLastRefreshTimeMillis;
+    /**
+     * Refresh shown again within the min refresh interval, it's stopped by
+     * {@link #mStopReplayedRefreshRunnable}
+     */
+    private boolean mIsRefreshReplayed;
+    private final Runnable mStopReplayedRefreshRunnable = new Runnable() {
         @Override
-        public void onAnimationEnd(Animation animation) {
-            mRefreshDrawable.stop();
-            mCurrentOffsetTop = mTarget.getTop();
+        public void run() {
+            setRefreshing(false);
         }
     };
-    private OnRefreshListener mOnRefreshListener;
+    @Nullable
+    private FrameTimings mFrameTimings;
+    @Nullable
+    private GestureTrace mGestureRecording;
+    @Nullable
+    private GestureTracePlayer mGestureTracePlayer;
+    @Nullable
+    private IdlePrewarmer mPrewarmer;
+    @Nullable
+    private OnFrameTimingsListener mOnFrameTimingsListener;
 
     /**
      * Simple constructor to use when creating a {@link FireworkyPullToRefreshLayout} from code.
@@ -145,17 +288,23 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
         }
 
         mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        mMinimumFlingVelocity = ViewConfiguration.get(context).getScaledMinimumFlingVelocity();
+        mNestedScrollingParentHelper = new NestedScrollingParentHelper(this);
+        mNestedScrollingChildHelper = new NestedScrollingChildHelper(this);
+        setNestedScrollingEnabled(true);
+        mDragFramePacer.setCoalescingEnabled(true);
+        mRefreshRequestPacer.setCoalescingEnabled(true);
 
         mRefreshView = new ImageView(context);
+        mRefreshContentView = new ImageView(context);
         mTotalDragDistance = Utils.convertDpToPixel(context, ROCKET_DRAG_MAX_DISTANCE);
-        mRefreshDrawable = new FireworkRefreshDrawable(this);
-
-        mRefreshView.setImageDrawable(mRefreshDrawable);
-        mConfig =  mRefreshDrawable.getConfig();
+        mConfig = new Configuration(context);
 
         readAttributes(context, attrs);
+        initOffsetAnimators();
 
         addView(mRefreshView);
+        addView(mRefreshContentView);
         setWillNotDraw(false);
         ViewCompat.setChildrenDrawingOrderEnabled(this, true);
     }
@@ -179,11 +328,119 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
             getConfig().setFireworkColors(array.getResourceId(R.styleable.FireworkyPullToRefreshLayout_ptr_fireworkColors, R.array.ptr_defColorSet));
             getConfig().setRocketAnimDuration(array.getInteger(R.styleable.FireworkyPullToRefreshLayout_ptr_rocketAnimDuration, 500));
             getConfig().setFireworkStyle(Configuration.FireworkStyle.fromId(array.getInt(R.styleable.FireworkyPullToRefreshLayout_ptr_fireworkStyle, 0)));
+            if (array.getBoolean(R.styleable.FireworkyPullToRefreshLayout_ptr_prewarm, false)) {
+                prewarm();
+            }
         } finally {
             array.recycle();
         }
     }
 
+    private void initOffsetAnimators() {
+        mToStartAnimator.setInterpolator(mDecelerateInterpolator);
+        mToStartAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                Tracing.beginSection(TRACE_MOVE_TO_START);
+                moveToStart((float) animation.getAnimatedValue());
+                Tracing.endSection();
+            }
+        });
+        mToStartAnimator.addListener(new AnimatorListenerAdapter() {
+            private boolean mIsCanceled;
+
+            @Override
+            public void onAnimationStart(Animator animation) {
+                mIsCanceled = false;
+            }
+
+            @Override
+            public void onAnimationCancel(Animator animation) {
+                mIsCanceled = true;
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (!mIsCanceled) {
+                    mRefreshDrawable.stop();
+                    moveTargetTo(0);
+                    updateRefreshViewLayerType();
+                }
+            }
+        });
+
+        mToCorrectAnimator.setDuration(MAX_OFFSET_ANIMATION_DURATION);
+        mToCorrectAnimator.setInterpolator(mDecelerateInterpolator);
+        mToCorrectAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                Tracing.beginSection(TRACE_MOVE_TO_CORRECT);
+                moveToCorrect((float) animation.getAnimatedValue());
+                Tracing.endSection();
+            }
+        });
+        mToCorrectAnimator.addListener(new AnimatorListenerAdapter() {
+            private boolean mIsCanceled;
+
+            @Override
+            public void onAnimationStart(Animator animation) {
+                mIsCanceled = false;
+            }
+
+            @Override
+            public void onAnimationCancel(Animator animation) {
+                mIsCanceled = true;
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (!mIsCanceled) {
+                    mCurrentDragPercent = 1f;
+                    mRefreshDrawable.setPercent(mCurrentDragPercent, false);
+                    updateRefreshViewLayerType();
+                }
+            }
+        });
+
+        mFlingPullAnimator.setDuration((long) (FLING_PULL_DURATION_SECONDS * 1000));
+        mFlingPullAnimator.setInterpolator(mDecelerateInterpolator);
+        mFlingPullAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                mTotalUnconsumed = mFlingPullStart + mFlingPullDistance * (float) animation.getAnimatedValue();
+                movePull(mSmoothedMotionX, mSmoothedMotionY, mTotalUnconsumed * DRAG_RATE);
+            }
+        });
+        mFlingPullAnimator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (mIsFlingPullFinishPending) {
+                    mIsFlingPullFinishPending = false;
+                    finishNestedPull();
+                }
+            }
+        });
+    }
+
+    /**
+     * Refresh drawable with its animators and resources is created on the first pull past
+     * the touch slop or the first refresh, so layouts which are never pulled stay cheap.
+     * @return refresh drawable
+     */
+    @NonNull
+    private FireworkRefreshDrawable getRefreshDrawable() {
+        if (mRefreshDrawable == null) {
+            mRefreshDrawable = new FireworkRefreshDrawable(this, mConfig);
+            mRefreshDrawable.setFrameTimings(mFrameTimings);
+            mRefreshView.setImageDrawable(mRefreshDrawable);
+            mRefreshContentView.setImageDrawable(mRefreshDrawable.getAnimatedContentDrawable());
+            //initial offset must be set before the first pull moves it
+            mRefreshDrawable.init();
+            updateRefreshDrawableVisibility();
+        }
+        return mRefreshDrawable;
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
@@ -191,9 +448,16 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
         if (targetView != null) {
             widthMeasureSpec = MeasureSpec.makeMeasureSpec(getMeasuredWidth() - getPaddingLeft() - getPaddingRight(), MeasureSpec.EXACTLY);
             heightMeasureSpec = MeasureSpec.makeMeasureSpec(getMeasuredHeight() - getPaddingBottom() - getPaddingTop(), MeasureSpec.EXACTLY);
+            final int targetHeightMeasureSpec = MeasureSpec.makeMeasureSpec(
+                    Math.max(0, getMeasuredHeight() - getPaddingBottom() - getPaddingTop() - mTargetTopInset), MeasureSpec.EXACTLY);
+
+            //background is clipped to the drag distance, so its layer is not taller than that
+            final int refreshHeightMeasureSpec = MeasureSpec.makeMeasureSpec(
+                    Math.min(mTotalDragDistance, MeasureSpec.getSize(heightMeasureSpec)), MeasureSpec.EXACTLY);
 
-            targetView.measure(widthMeasureSpec, heightMeasureSpec);
-            mRefreshView.measure(widthMeasureSpec, heightMeasureSpec);
+            targetView.measure(widthMeasureSpec, targetHeightMeasureSpec);
+            mRefreshView.measure(widthMeasureSpec, refreshHeightMeasureSpec);
+            mRefreshContentView.measure(widthMeasureSpec, heightMeasureSpec);
         }
     }
 
@@ -208,17 +472,172 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
             int right = getPaddingRight();
             int bottom = getPaddingBottom();
 
-            targetView.layout(left, top + mCurrentOffsetTop, left + width - right, top + height - bottom + mCurrentOffsetTop);
-            mRefreshView.layout(left, top, left + width - right, top + height - bottom);
+            if (mIsTargetTranslated) {
+                targetView.layout(left, top + mTargetTopInset, left + width - right, top + height - bottom);
+            } else {
+                targetView.layout(left, top + mCurrentOffsetTop, left + width - right, top + height - bottom + mCurrentOffsetTop);
+            }
+            mRefreshView.layout(left, top, left + width - right, top + mRefreshView.getMeasuredHeight());
+            mRefreshContentView.layout(left, top, left + width - right, top + height - bottom);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mIsAttachedToWindow = true;
+        if (mIsRefreshing && mRefreshDrawable != null && !mRefreshDrawable.isRunning()) {
+            //animations were released on detach, refresh is shown again without the launch
+            mRefreshDrawable.setSkipRocketAnimation(true);
+            mRefreshDrawable.start();
+            mRefreshDrawable.setPercent(1f, true);
+        }
+        updateRefreshDrawableVisibility();
+        updateRefreshViewLayerType();
+        if (mPrewarmer != null) {
+            mPrewarmer.schedule();
         }
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        mIsAttachedToWindow = false;
+        updateRefreshDrawableVisibility();
+        if (mPrewarmer != null) {
+            mPrewarmer.cancel();
+        }
+        mDragFramePacer.cancel();
+        recycleVelocityTracker();
+        if (mGestureTracePlayer != null) {
+            mGestureTracePlayer.cancel();
+        }
+        //posted callbacks would keep the layout alive too, pending refresh request is applied now
+        mMainHandler.removeCallbacks(mRequestRefreshFrameRunnable);
+        mRefreshRequestPacer.cancel();
+        mIsRefreshRequestPosted.set(false);
+        applyRefreshRequest();
+        //refresh waiting for a scheduled stop would never end, so it's stopped here
+        final boolean isRefreshStopScheduled = mAsyncRefreshRunner.isWaiting() || mIsRefreshReplayed;
+        mMainHandler.removeCallbacks(mStopReplayedRefreshRunnable);
+        mAsyncRefreshRunner.cancel();
+        if (isRefreshStopScheduled && mIsRefreshing) {
+            setRefreshing(false);
+        }
+        //paused animators and particle timers would keep the layout and its context alive,
+        //so they are finished here and the refresh is restarted on reattach
+        if (mToStartAnimator.isStarted()) {
+            mToStartAnimator.end();
+        }
+        if (mToCorrectAnimator.isStarted()) {
+            mToCorrectAnimator.end();
+        }
+        if (mFlingPullAnimator.isStarted()) {
+            mFlingPullAnimator.end();
+        }
+        if (mRefreshDrawable != null) {
+            mRefreshDrawable.release();
+        }
+        mRefreshView.setLayerType(LAYER_TYPE_NONE, null);
+        //shared resources are acquired again on the next draw
+        mConfig.release();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateRefreshDrawableVisibility();
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateRefreshDrawableVisibility();
+    }
+
+    /**
+     * Visible means the same as View#onVisibilityAggregated (API 24) reports: the layout is
+     * attached, its window is visible and so are all of its ancestors.
+     */
+    private boolean isShownInWindow() {
+        return mIsAttachedToWindow
+                && getWindowVisibility() == VISIBLE
+                && isShown();
+    }
+
+    /**
+     * Suspend refresh animations while nothing can be seen and resume them once the
+     * layout is shown again.
+     */
+    private void updateRefreshDrawableVisibility() {
+        if (mRefreshDrawable == null) {
+            //visibility can be dispatched from the super constructor
+            return;
+        }
+        final boolean isVisible = isShownInWindow();
+        mRefreshDrawable.setVisible(isVisible, false);
+        if (isVisible) {
+            Utils.resumeAnimator(mToStartAnimator);
+            Utils.resumeAnimator(mToCorrectAnimator);
+        } else {
+            Utils.pauseAnimator(mToStartAnimator);
+            Utils.pauseAnimator(mToCorrectAnimator);
+        }
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent motionEvent) {
+        if (mGestureRecording != null) {
+            mGestureRecording.record(motionEvent);
+        }
+        //nested scroll callbacks have no pointer, the curve follows the last touch
+        trackPointer(motionEvent);
+        return super.dispatchTouchEvent(motionEvent);
+    }
+
+    /**
+     * Update smoothed pointer position which drives the curve and the rocket angle.
+     * All batched historical samples are used, so the estimate doesn't jitter on
+     * high-rate touch panels.
+     */
+    private void trackPointer(MotionEvent motionEvent) {
+        int pointerIndex = motionEvent.findPointerIndex(mActivePointerId);
+        if (pointerIndex < 0) {
+            pointerIndex = 0;
+        }
+        if (MotionEventCompat.getActionMasked(motionEvent) == MotionEvent.ACTION_DOWN) {
+            mSmoothedMotionX = motionEvent.getX(pointerIndex);
+            mSmoothedMotionY = motionEvent.getY(pointerIndex);
+            return;
+        }
+        final int historySize = motionEvent.getHistorySize();
+        for (int i = 0; i < historySize; i++) {
+            smoothPointer(motionEvent.getHistoricalX(pointerIndex, i), motionEvent.getHistoricalY(pointerIndex, i));
+        }
+        smoothPointer(motionEvent.getX(pointerIndex), motionEvent.getY(pointerIndex));
+    }
+
+    private void smoothPointer(float x, float y) {
+        mSmoothedMotionX += (x - mSmoothedMotionX) * POINTER_SMOOTHING_FACTOR;
+        mSmoothedMotionY += (y - mSmoothedMotionY) * POINTER_SMOOTHING_FACTOR;
+    }
+
     @Override
     public boolean onInterceptTouchEvent(MotionEvent motionEvent) {
-        if (!isEnabled() || canChildScrollUp() || mIsRefreshing) {
+        Tracing.beginSection(TRACE_INTERCEPT_TOUCH_EVENT);
+        try {
+            return interceptTouchEvent(motionEvent);
+        } finally {
+            Tracing.endSection();
+        }
+    }
+
+    private boolean interceptTouchEvent(MotionEvent motionEvent) {
+        if (!isEnabled() || mIsRefreshing || mNestedScrollInProgress || canChildScrollUp()) {
             return false;
         }
 
+        trackVelocity(motionEvent);
         switch (MotionEventCompat.getActionMasked(motionEvent)) {
             case MotionEvent.ACTION_DOWN:
                 setTargetOffsetTop(0, true);
@@ -229,6 +648,12 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
                     return false;
                 }
                 mInitialMotionY = initialMotionY;
+                if (mToStartAnimator.isRunning() && !getRefreshDrawable().isRunning()) {
+                    //catch released pull on its way back, it continues from the current position
+                    mToStartAnimator.cancel();
+                    mInitialMotionY -= mCurrentDragPercent * mTotalDragDistance / DRAG_RATE;
+                    mIsBeingDragged = true;
+                }
                 break;
             case MotionEvent.ACTION_MOVE:
                 if (mActivePointerId == INVALID_POINTER_ID) {
@@ -242,12 +667,18 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
                 final float yDiff = y - mInitialMotionY;
                 if (yDiff > mTouchSlop && !mIsBeingDragged) {
                     mIsBeingDragged = true;
+                    getRefreshDrawable();
                 }
                 break;
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
                 mIsBeingDragged = false;
                 mActivePointerId = INVALID_POINTER_ID;
+                recycleVelocityTracker();
+                if (mCurrentOffsetTop > 0 && !mToStartAnimator.isRunning()) {
+                    //caught pull released without dragging
+                    animateOffsetToStartPosition();
+                }
                 break;
             case MotionEvent.ACTION_POINTER_UP:
                 onSecondaryPointerUp(motionEvent);
@@ -274,7 +705,7 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
                 post(new Runnable() {
                     @Override
                     public void run() {
-                        mRefreshDrawable.setSkipRocketAnimation(true);
+                        getRefreshDrawable().setSkipRocketAnimation(true);
                         setRefreshing(true, false);
                     }
                 });
@@ -300,9 +731,19 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
 
     @Override
     public boolean onTouchEvent(@NonNull MotionEvent motionEvent) {
+        Tracing.beginSection(TRACE_TOUCH_EVENT);
+        try {
+            return handleTouchEvent(motionEvent);
+        } finally {
+            Tracing.endSection();
+        }
+    }
+
+    private boolean handleTouchEvent(@NonNull MotionEvent motionEvent) {
         if (!mIsBeingDragged) {
             return super.onTouchEvent(motionEvent);
         }
+        trackVelocity(motionEvent);
 
         switch (MotionEventCompat.getActionMasked(motionEvent)) {
             case MotionEvent.ACTION_MOVE: {
@@ -310,21 +751,13 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
                 if (pointerIndex != 0) {
                     return false;
                 }
-                final float x = motionEvent.getX(pointerIndex);
                 final float y = motionEvent.getY(pointerIndex);
-                final float yDiff = y - mInitialMotionY;
-                final float scrollTop = yDiff * DRAG_RATE;
-                mCurrentDragPercent = scrollTop / mTotalDragDistance;
-                if (mCurrentDragPercent < 0) {
+                if (y < mInitialMotionY) {
                     return false;
                 }
-                float boundedDragPercent = Math.min(1f, Math.abs(mCurrentDragPercent));
-                float slingshotDist = mTotalDragDistance;
-                int targetY = (int) ((slingshotDist * boundedDragPercent));
-
-                mRefreshDrawable.setPointerPosition(x, y);
-                mRefreshDrawable.setPercent(mCurrentDragPercent, true);
-                setTargetOffsetTop(targetY - mCurrentOffsetTop, true);
+                //high-rate panels deliver several moves per frame, only the latest one is applied
+                mPendingMotionY = y;
+                mDragFramePacer.requestFrame();
                 break;
             }
             case MotionEventCompat.ACTION_POINTER_DOWN:
@@ -338,15 +771,14 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
                 if (mActivePointerId == INVALID_POINTER_ID) {
                     return false;
                 }
-                final float y = motionEvent.getY(motionEvent.findPointerIndex(mActivePointerId));
-                final float overScrollTop = (y - mInitialMotionY) * DRAG_RATE;
+                //pending frame is applied right away, so the refresh decision and the animation back
+                //start from the shown position
+                mPendingMotionY = motionEvent.getY(motionEvent.findPointerIndex(mActivePointerId));
+                final float overScrollTop = applyPendingDrag();
+                mDragFramePacer.cancel();
                 mIsBeingDragged = false;
-                if (overScrollTop > mTotalDragDistance) {
-                    setRefreshing(true, true);
-                } else {
-                    mIsRefreshing = false;
-                    animateOffsetToStartPosition();
-                }
+                recycleVelocityTracker();
+                finishPull(overScrollTop);
                 mActivePointerId = INVALID_POINTER_ID;
                 return false;
             }
@@ -355,6 +787,297 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
         return true;
     }
 
+    /**
+     * Move the pull to the latest pointer position received since the previous frame
+     * @return pull distance
+     */
+    private float applyPendingDrag() {
+        final float overScrollTop = (mPendingMotionY - mInitialMotionY) * DRAG_RATE;
+        movePull(mSmoothedMotionX, mSmoothedMotionY, overScrollTop);
+        return overScrollTop;
+    }
+
+    /**
+     * Move the target and the refresh drawable to the pull distance
+     * @param x             pointer x
+     * @param y             pointer y
+     * @param overScrollTop pull distance
+     * @return false if the pull distance is negative and nothing is moved
+     */
+    private boolean movePull(float x, float y, float overScrollTop) {
+        mCurrentDragPercent = overScrollTop / mTotalDragDistance;
+        if (mCurrentDragPercent < 0) {
+            return false;
+        }
+        float boundedDragPercent = Math.min(1f, Math.abs(mCurrentDragPercent));
+        float slingshotDist = mTotalDragDistance;
+        int targetY = (int) ((slingshotDist * boundedDragPercent));
+
+        final FireworkRefreshDrawable refreshDrawable = getRefreshDrawable();
+        refreshDrawable.setPointerPosition(x, y);
+        refreshDrawable.setPercent(mCurrentDragPercent, true);
+        setTargetOffsetTop(targetY - mCurrentOffsetTop, true);
+
+        if (!mIsLikelyToRefreshReported && mCurrentDragPercent >= mLikelyToRefreshPercent
+                && mOnPullProgressListener != null) {
+            mIsLikelyToRefreshReported = true;
+            mOnPullProgressListener.onLikelyToRefresh();
+        }
+        return true;
+    }
+
+    /**
+     * Start refreshing if the pull is long enough, otherwise return to the start position
+     * @param overScrollTop pull distance
+     */
+    private void finishPull(float overScrollTop) {
+        final boolean isLikelyToRefreshReported = mIsLikelyToRefreshReported;
+        mIsLikelyToRefreshReported = false;
+        if (overScrollTop > mTotalDragDistance) {
+            if (isRefreshCoolingDown()) {
+                //show the animation without refreshing again
+                setRefreshing(true, false);
+                mIsRefreshReplayed = true;
+                mMainHandler.postDelayed(mStopReplayedRefreshRunnable,
+                        mConfig.getRocketAnimDuration() * 2 + REPLAYED_REFRESH_HOLD_DURATION);
+            } else {
+                mLastRefreshTimeMillis = SystemClock.uptimeMillis();
+                setRefreshing(true, !mIsSpeculativeRefreshNotified);
+                mAsyncRefreshRunner.start();
+            }
+        } else {
+            rollbackSpeculativeRefresh();
+            mIsRefreshing = false;
+            animateOffsetToStartPosition();
+            if (isLikelyToRefreshReported && mOnPullProgressListener != null) {
+                mOnPullProgressListener.onPullAbandoned();
+            }
+        }
+    }
+
+    private boolean isRefreshCoolingDown() {
+        return mLastRefreshTimeMillis != 0
+                && SystemClock.uptimeMillis() - mLastRefreshTimeMillis < mMinRefreshIntervalMillis;
+    }
+
+    private void trackVelocity(MotionEvent motionEvent) {
+        if (!mIsSpeculativeRefreshEnabled) {
+            return;
+        }
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        }
+        if (MotionEventCompat.getActionMasked(motionEvent) == MotionEvent.ACTION_DOWN) {
+            mVelocityTracker.clear();
+        }
+        mVelocityTracker.addMovement(motionEvent);
+    }
+
+    private void recycleVelocityTracker() {
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+
+    /**
+     * Start refresh animation a few frames before the release if the pull is past the threshold
+     * and the pointer has almost stopped, so the release is likely to trigger refresh.
+     * The start is rolled back if the pull goes back below the threshold.
+     * @param overScrollTop current pull distance
+     */
+    private void updateSpeculativeRefresh(float overScrollTop) {
+        if (!mIsSpeculativeRefreshEnabled || mVelocityTracker == null) {
+            return;
+        }
+        if (mIsRefreshSpeculative) {
+            if (overScrollTop <= mTotalDragDistance) {
+                rollbackSpeculativeRefresh();
+            }
+            return;
+        }
+        mVelocityTracker.computeCurrentVelocity(1000);
+        final float velocityY = VelocityTrackerCompat.getYVelocity(mVelocityTracker, mActivePointerId);
+        final float predictedOverScrollTop = overScrollTop + velocityY * DRAG_RATE * RELEASE_PREDICTION_SECONDS;
+        if (overScrollTop > mTotalDragDistance
+                && predictedOverScrollTop > mTotalDragDistance
+                && Math.abs(velocityY) < mMinimumFlingVelocity) {
+            mIsRefreshSpeculative = true;
+            getRefreshDrawable().start();
+            getRefreshDrawable().setPercent(mCurrentDragPercent, true);
+            //the app is told about speculative refresh only if it can be told about the rollback
+            if (mOnRefreshListener != null && mOnRefreshCanceledListener != null && !isRefreshCoolingDown()) {
+                mIsSpeculativeRefreshNotified = true;
+                mOnRefreshListener.onRefresh();
+            }
+        }
+    }
+
+    private void rollbackSpeculativeRefresh() {
+        if (!mIsRefreshSpeculative) {
+            return;
+        }
+        mIsRefreshSpeculative = false;
+        mRefreshDrawable.stop();
+        mRefreshDrawable.setPercent(mCurrentDragPercent, true);
+        if (mIsSpeculativeRefreshNotified) {
+            mIsSpeculativeRefreshNotified = false;
+            if (mOnRefreshCanceledListener != null) {
+                mOnRefreshCanceledListener.onRefreshCanceled();
+            }
+        }
+    }
+
+    // NestedScrollingParent
+
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return isEnabled() && !mIsRefreshing
+                && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+    }
+
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes) {
+        mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes);
+        startNestedScroll(axes & ViewCompat.SCROLL_AXIS_VERTICAL);
+        //previous pull is finished before the new one starts
+        if (mFlingPullAnimator.isStarted()) {
+            mFlingPullAnimator.end();
+        }
+        mTotalUnconsumed = 0;
+        if (mToStartAnimator.isRunning() && !getRefreshDrawable().isRunning()) {
+            //catch released pull on its way back, it continues from the current position
+            mToStartAnimator.cancel();
+            mTotalUnconsumed = mCurrentDragPercent * mTotalDragDistance / DRAG_RATE;
+        }
+        mNestedScrollInProgress = true;
+    }
+
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+        //pushing back the pull is consumed before the child scrolls
+        if (dy > 0 && mTotalUnconsumed > 0) {
+            if (dy > mTotalUnconsumed) {
+                consumed[1] = dy - (int) mTotalUnconsumed;
+                mTotalUnconsumed = 0;
+            } else {
+                mTotalUnconsumed -= dy;
+                consumed[1] = dy;
+            }
+            movePull(mSmoothedMotionX, mSmoothedMotionY, mTotalUnconsumed * DRAG_RATE);
+        }
+
+        final int[] parentConsumed = mParentScrollConsumed;
+        if (dispatchNestedPreScroll(dx - consumed[0], dy - consumed[1], parentConsumed, null)) {
+            consumed[0] += parentConsumed[0];
+            consumed[1] += parentConsumed[1];
+        }
+    }
+
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+        //parents get the overscroll first, so the pull starts only when nothing above can scroll
+        dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, mParentOffsetInWindow);
+
+        final int dy = dyUnconsumed + mParentOffsetInWindow[1];
+        if (dy < 0 && !mIsRefreshing && !canChildScrollUp()) {
+            mTotalUnconsumed += Math.abs(dy);
+            movePull(mSmoothedMotionX, mSmoothedMotionY, mTotalUnconsumed * DRAG_RATE);
+        }
+    }
+
+    @Override
+    public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
+        if (mTotalUnconsumed > 0 && velocityY < 0) {
+            //fling down during the pull continues the pull, the extension is shown before it counts
+            final float maxDistance = mTotalDragDistance * FLING_PULL_MAX_PERCENT / DRAG_RATE;
+            mFlingPullStart = mTotalUnconsumed;
+            mFlingPullDistance = Math.min(Math.abs(velocityY) * FLING_PULL_DURATION_SECONDS / 2f, maxDistance);
+            mFlingPullAnimator.start();
+            return true;
+        }
+        //fling up releases the pull and is carried by the child
+        return dispatchNestedPreFling(velocityX, velocityY);
+    }
+
+    @Override
+    public boolean onNestedFling(View target, float velocityX, float velocityY, boolean consumed) {
+        return dispatchNestedFling(velocityX, velocityY, consumed);
+    }
+
+    @Override
+    public int getNestedScrollAxes() {
+        return mNestedScrollingParentHelper.getNestedScrollAxes();
+    }
+
+    @Override
+    public void onStopNestedScroll(View target) {
+        mNestedScrollingParentHelper.onStopNestedScroll(target);
+        mNestedScrollInProgress = false;
+        if (mFlingPullAnimator.isStarted()) {
+            mIsFlingPullFinishPending = true;
+        } else {
+            finishNestedPull();
+        }
+        stopNestedScroll();
+    }
+
+    private void finishNestedPull() {
+        if (mTotalUnconsumed > 0) {
+            finishPull(mTotalUnconsumed * DRAG_RATE);
+            mTotalUnconsumed = 0;
+        }
+    }
+
+    // NestedScrollingChild
+
+    @Override
+    public void setNestedScrollingEnabled(boolean enabled) {
+        mNestedScrollingChildHelper.setNestedScrollingEnabled(enabled);
+    }
+
+    @Override
+    public boolean isNestedScrollingEnabled() {
+        return mNestedScrollingChildHelper.isNestedScrollingEnabled();
+    }
+
+    @Override
+    public boolean startNestedScroll(int axes) {
+        return mNestedScrollingChildHelper.startNestedScroll(axes);
+    }
+
+    @Override
+    public void stopNestedScroll() {
+        mNestedScrollingChildHelper.stopNestedScroll();
+    }
+
+    @Override
+    public boolean hasNestedScrollingParent() {
+        return mNestedScrollingChildHelper.hasNestedScrollingParent();
+    }
+
+    @Override
+    public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed,
+                                        int[] offsetInWindow) {
+        return mNestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed,
+                dxUnconsumed, dyUnconsumed, offsetInWindow);
+    }
+
+    @Override
+    public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow) {
+        return mNestedScrollingChildHelper.dispatchNestedPreScroll(dx, dy, consumed, offsetInWindow);
+    }
+
+    @Override
+    public boolean dispatchNestedFling(float velocityX, float velocityY, boolean consumed) {
+        return mNestedScrollingChildHelper.dispatchNestedFling(velocityX, velocityY, consumed);
+    }
+
+    @Override
+    public boolean dispatchNestedPreFling(float velocityX, float velocityY) {
+        return mNestedScrollingChildHelper.dispatchNestedPreFling(velocityX, velocityY);
+    }
+
     /**
      * @return Whether it is possible for the child view of this layout to
      *         scroll up. Override this if the child view is a custom view.
@@ -386,7 +1109,7 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
 
     /**
      * @return Whether the {@link FireworkyPullToRefreshLayout} is actively showing refresh
-     *         progress.
+     *         progress. Must be called from the main thread.
      */
     public boolean isRefreshing() {
         return mIsRefreshing;
@@ -395,40 +1118,81 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
     /**
      * Notify the widget that refresh state has changed. Do not call this when
      * refresh is triggered by a swipe gesture.
-     * <b>Note!</b> You must wrap calling this method in {@link FireworkyPullToRefreshLayout#post(Runnable)}
+     * Can be called from any thread. Called from the main thread it's applied immediately
+     * and overrides pending {@link #requestRefreshing(boolean)} calls, otherwise it's the same as
+     * {@link #requestRefreshing(boolean)}.
      * @param refreshing Whether or not the view should show refresh progress.
      */
     public void setRefreshing(boolean refreshing) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            requestRefreshing(refreshing);
+            return;
+        }
+        mRefreshRequest.set(REFRESH_REQUEST_NONE);
         setRefreshing(refreshing, false);
     }
 
+    /**
+     * Request refresh state change from any thread. Requests are applied on the main thread
+     * once per frame, only the latest one is applied, so start and stop requested within
+     * one frame don't restart the animation. {@link #isRefreshing()} reflects the request
+     * once it's applied.
+     * @param refreshing Whether or not the view should show refresh progress.
+     */
+    public void requestRefreshing(boolean refreshing) {
+        mRefreshRequest.set(refreshing ? REFRESH_REQUEST_START : REFRESH_REQUEST_STOP);
+        if (mIsRefreshRequestPosted.compareAndSet(false, true)) {
+            mMainHandler.post(mRequestRefreshFrameRunnable);
+        }
+    }
+
+    private void applyRefreshRequest() {
+        final int request = mRefreshRequest.getAndSet(REFRESH_REQUEST_NONE);
+        if (request != REFRESH_REQUEST_NONE) {
+            setRefreshing(request == REFRESH_REQUEST_START, false);
+        }
+    }
+
     private void setRefreshing(boolean refreshing, final boolean notify) {
         if (mIsRefreshing != refreshing) {
 
             mIsRefreshing = refreshing;
             if (mIsRefreshing) {
-                mRefreshDrawable.setPercent(1f, true);
+                getRefreshDrawable().setPercent(1f, true);
                 mFrom = mCurrentOffsetTop;
                 mFromDragPercent = mCurrentDragPercent;
 
-                mAnimateToCorrectPosition.reset();
-                mAnimateToCorrectPosition.setDuration(MAX_OFFSET_ANIMATION_DURATION);
-                mAnimateToCorrectPosition.setInterpolator(mDecelerateInterpolator);
-
-                mRefreshView.clearAnimation();
-                mRefreshView.startAnimation(mAnimateToCorrectPosition);
+                mToStartAnimator.cancel();
+                mToCorrectAnimator.cancel();
+                mToCorrectAnimator.start();
+                if (!isShownInWindow()) {
+                    Utils.pauseAnimator(mToCorrectAnimator);
+                }
 
-                mRefreshDrawable.start();
+                if (mIsRefreshSpeculative) {
+                    //animation has been started before the release
+                    mRefreshDrawable.confirmStart();
+                } else {
+                    mRefreshDrawable.start();
+                }
+                mIsRefreshSpeculative = false;
+                mIsSpeculativeRefreshNotified = false;
                 if (notify && null != mOnRefreshListener) {
                     mOnRefreshListener.onRefresh();
                 }
 
-                mCurrentOffsetTop = mTarget.getTop();
-                mTarget.setPadding(mTargetPaddingLeft, mTargetPaddingTop, mTargetPaddingRight, mTargetPaddingBottom);
+                mCurrentOffsetTop = getTargetOffsetTop();
+                if (mTarget != null && !mIsTargetTranslated) {
+                    mTarget.setPadding(mTargetPaddingLeft, mTargetPaddingTop, mTargetPaddingRight, mTargetPaddingBottom);
+                }
             } else {
+                mAsyncRefreshRunner.cancel();
+                mMainHandler.removeCallbacks(mStopReplayedRefreshRunnable);
+                mIsRefreshReplayed = false;
                 animateOffsetToStartPosition();
                 mRefreshDrawable.cancelAnimation();
             }
+            updateRefreshViewLayerType();
         }
     }
 
@@ -437,7 +1201,7 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
         if (mTarget == null) {
             for (int i = 0; i < getChildCount(); i++) {
                 View child = getChildAt(i);
-                if (child != mRefreshView) {
+                if (child != mRefreshView && child != mRefreshContentView) {
                     mTarget = child;
                     mTargetPaddingBottom = mTarget.getPaddingBottom();
                     mTargetPaddingLeft = mTarget.getPaddingLeft();
@@ -450,16 +1214,36 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
     }
 
     private void animateOffsetToStartPosition() {
+        //the only relayout of the translated return animation
+        setTargetTopInset(0);
         mFromDragPercent = mCurrentDragPercent;
         mFrom = mCurrentOffsetTop;
         long animationDuration = Math.abs((long) (MAX_OFFSET_ANIMATION_DURATION * mFromDragPercent));
 
-        mAnimateToStartPosition.reset();
-        mAnimateToStartPosition.setDuration(animationDuration);
-        mAnimateToStartPosition.setInterpolator(mDecelerateInterpolator);
-        mAnimateToStartPosition.setAnimationListener(mToStartListener);
-        mRefreshView.clearAnimation();
-        mRefreshView.startAnimation(mAnimateToStartPosition);
+        mToCorrectAnimator.cancel();
+        mToStartAnimator.cancel();
+        mToStartAnimator.setDuration(animationDuration);
+        mToStartAnimator.start();
+        if (!isShownInWindow()) {
+            Utils.pauseAnimator(mToStartAnimator);
+        }
+    }
+
+    private void moveToCorrect(float interpolatedTime) {
+        int targetTop;
+        int endTarget = mTotalDragDistance;
+        targetTop = (mFrom + (int) ((endTarget - mFrom) * interpolatedTime));
+        int offset = targetTop - getTargetOffsetTop();
+
+        mCurrentDragPercent = mFromDragPercent - (mFromDragPercent - 1.0f) * interpolatedTime;
+        mRefreshDrawable.setPercent(mCurrentDragPercent, false);
+
+        if (mRefreshDrawable.isSkipRocketAnimation()) {
+            mRefreshDrawable.setOffsetTopAndBottom(0);
+            mCurrentOffsetTop = getTargetOffsetTop();
+        } else {
+            setTargetOffsetTop(offset, false);
+        }
     }
 
     private void moveToStart(float interpolatedTime) {
@@ -467,22 +1251,168 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
 
         mCurrentDragPercent = mFromDragPercent * (1.0f - interpolatedTime);
         mRefreshDrawable.setPercent(mCurrentDragPercent, true);
-        mTarget.setPadding(mTargetPaddingLeft, mTargetPaddingTop, mTargetPaddingRight, mTargetPaddingBottom + targetTop);
-
-        mTarget.offsetTopAndBottom(targetTop - mTarget.getTop());
+        if (mTarget != null && !mIsTargetTranslated) {
+            mTarget.setPadding(mTargetPaddingLeft, mTargetPaddingTop, mTargetPaddingRight, mTargetPaddingBottom + targetTop);
+        }
+        moveTargetTo(targetTop);
         mRefreshDrawable.setOffsetTopAndBottom((int) (-getTotalDragDistance() * interpolatedTime));
-        mCurrentOffsetTop = mTarget.getTop();
     }
 
     private void setTargetOffsetTop(int offset, boolean requiresUpdate) {
-        mTarget.offsetTopAndBottom(offset);
-        mRefreshDrawable.offsetTopAndBottom(offset);
-        mCurrentOffsetTop = mTarget.getTop();
+        moveTargetTo(getTargetOffsetTop() + offset);
+        if (mRefreshDrawable != null) {
+            mRefreshDrawable.offsetTopAndBottom(offset);
+        }
         if (requiresUpdate && Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
             invalidate();
         }
     }
 
+    /**
+     * @return current target offset from the top of the layout
+     */
+    int getTargetOffsetTop() {
+        if (mTarget == null) {
+            return 0;
+        }
+        if (mIsTargetTranslated) {
+            return mTargetTopInset + Math.round(mTarget.getTranslationY() - mTargetBaseTranslationY);
+        }
+        return mTarget.getTop() - getPaddingTop();
+    }
+
+    /**
+     * Move the whole target, the movement mode is selected when it leaves the start position.
+     * @param offsetTop target offset from the top of the layout
+     */
+    void moveTargetTo(int offsetTop) {
+        if (mTarget != null) {
+            if (mCurrentOffsetTop == 0 && mTargetTopInset == 0) {
+                mIsTargetTranslated = mConfig.getTargetMovementMode() == Configuration.TargetMovementMode.TRANSLATION;
+                mTargetBaseTranslationY = mIsTargetTranslated ? mTarget.getTranslationY() : 0f;
+            }
+            if (mIsTargetTranslated) {
+                mTarget.setTranslationY(mTargetBaseTranslationY + offsetTop - mTargetTopInset);
+            } else {
+                mTarget.offsetTopAndBottom(getPaddingTop() + offsetTop - mTarget.getTop());
+            }
+        }
+        mCurrentOffsetTop = offsetTop;
+    }
+
+    /**
+     * Move the target top only, the target becomes shorter, so its bottom stays visible
+     * at the refresh hold position.
+     * @param offsetTop target top offset from the top of the layout
+     */
+    void moveTargetTopTo(int offsetTop) {
+        if (mIsTargetTranslated) {
+            //translated target is shortened once by setTargetTopInset in the end
+            moveTargetTo(offsetTop);
+            return;
+        }
+        if (mTarget != null) {
+            mTarget.setTop(getPaddingTop() + offsetTop);
+        }
+        mCurrentOffsetTop = offsetTop;
+    }
+
+    /**
+     * Commit the top inset to the translated target layout, it's the same shortening
+     * {@link #moveTargetTopTo(int)} applies to the relaid out target, done by a single relayout.
+     * Current on-screen position is kept by translation.
+     * @param inset target top inset
+     */
+    void setTargetTopInset(int inset) {
+        if (!mIsTargetTranslated || mTargetTopInset == inset) {
+            return;
+        }
+        final int offsetTop = getTargetOffsetTop();
+        mTargetTopInset = inset;
+        moveTargetTo(offsetTop);
+        requestLayout();
+    }
+
+    /**
+     * Refresh views are moved by translation, so moving them doesn't redraw their content.
+     * @param offsetTop refresh drawable vertical offset
+     */
+    void setRefreshViewOffsetTop(int offsetTop) {
+        mRefreshView.setTranslationY(offsetTop);
+        mRefreshContentView.setTranslationY(offsetTop);
+    }
+
+    /**
+     * Hint preferred frame rate of the refresh views to the platform
+     * @param frameRate frames per second or {@link Float#NaN} to clear the hint
+     */
+    void setRefreshViewsFrameRate(float frameRate) {
+        Utils.setRequestedFrameRate(mRefreshView, frameRate);
+        Utils.setRequestedFrameRate(mRefreshContentView, frameRate);
+    }
+
+    /**
+     * Keep refresh background in a hardware layer while only its translation changes: during the
+     * refresh hold and offset animations after the curve animation is over. Background is drawn
+     * directly while its content is changing and the layer is released when refresh ends or
+     * the layout is detached. The background view is as tall as the drag distance, so is the layer.
+     * Rocket and fireworks are drawn by the separate view and are never cached.
+     */
+    void updateRefreshViewLayerType() {
+        final int layerType = mIsRefreshing && mRefreshDrawable != null && mRefreshDrawable.isBackgroundSettled()
+                ? LAYER_TYPE_HARDWARE
+                : LAYER_TYPE_NONE;
+        if (mRefreshView.getLayerType() != layerType) {
+            mRefreshView.setLayerType(layerType, null);
+        }
+    }
+
+    /**
+     * Prepare the refresh animation ahead of the first pull: resolve resources, create
+     * the refresh drawable and fireworks, rasterize rocket drawables and run drawing code once
+     * on a software canvas. Hardware rendering isn't prewarmed, the first accelerated frame
+     * still uploads bitmaps and prepares shaders on the render thread.
+     * Work is split into small steps which run while the main thread is idle and only while
+     * the layout is attached to window.
+     * Must be called from the main thread. Can also be enabled by ptr_prewarm XML attribute.
+     */
+    public void prewarm() {
+        if (mPrewarmer != null) {
+            return;
+        }
+        mPrewarmer = new IdlePrewarmer();
+        mPrewarmer.addStep(new Runnable() {
+            @Override
+            public void run() {
+                mConfig.prewarm();
+            }
+        });
+        mPrewarmer.addStep(new Runnable() {
+            @Override
+            public void run() {
+                getRefreshDrawable();
+            }
+        });
+        mPrewarmer.addStep(new Runnable() {
+            @Override
+            public void run() {
+                getRefreshDrawable().prewarmFireworks();
+            }
+        });
+        mPrewarmer.addStep(new Runnable() {
+            @Override
+            public void run() {
+                //software canvas, warms the main thread drawing code only
+                final Bitmap scratchBitmap = Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
+                getRefreshDrawable().prewarmDrawing(new Canvas(scratchBitmap));
+                scratchBitmap.recycle();
+            }
+        });
+        if (mIsAttachedToWindow) {
+            mPrewarmer.schedule();
+        }
+    }
+
     /**
      * Set the listener to be notified when a refresh is triggered via the swipe gesture.
      */
@@ -490,6 +1420,100 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
         mOnRefreshListener = onRefreshListener;
     }
 
+    /**
+     * Set the listener to run refresh triggered by the swipe gesture on the executor. The refresh
+     * animation stops by itself when the listener returns, there's no need to call
+     * {@link #setRefreshing(boolean)}. Calling {@link #setRefreshing(boolean)} with {@code false}
+     * stops the refresh earlier, then the result of the running listener is ignored.
+     * Works together with {@link OnRefreshListener}, which is still notified on the main thread.
+     * @param listener Listener or null to remove it
+     * @param executor Executor to run the listener on, e.g. a background thread pool
+     */
+    public void setOnAsyncRefreshListener(@Nullable OnAsyncRefreshListener listener, @NonNull Executor executor) {
+        mAsyncRefreshRunner.setListener(listener, executor);
+    }
+
+    /**
+     * @param timeoutMillis Max duration of refresh run by {@link OnAsyncRefreshListener}, the refresh
+     *                      animation stops after it even if the listener hasn't returned yet.
+     *                      0 for no timeout, default.
+     */
+    public void setAsyncRefreshTimeout(long timeoutMillis) {
+        mAsyncRefreshRunner.setTimeout(timeoutMillis);
+    }
+
+    /**
+     * @param durationMillis Min duration of refresh run by {@link OnAsyncRefreshListener}, so fast
+     *                       refresh doesn't cut the animation. 0 by default.
+     */
+    public void setMinAsyncRefreshDuration(long durationMillis) {
+        mAsyncRefreshRunner.setMinDuration(durationMillis);
+    }
+
+    /**
+     * Set the min interval between refreshes triggered by the swipe gesture. Refresh triggered
+     * sooner after the previous one plays the animation without notifying the listeners
+     * and stops by itself. 0 for no limit, default.
+     * @param intervalMillis Min time from the start of one refresh to the start of the next one
+     */
+    public void setMinRefreshInterval(long intervalMillis) {
+        mMinRefreshIntervalMillis = intervalMillis;
+    }
+
+    /**
+     * Set whether refresh triggered while {@link OnAsyncRefreshListener} of the previous refresh
+     * is still running (e.g. it was stopped by the timeout) waits for that run instead of running
+     * the listener again. Enabled by default.
+     * @param enabled Whether or not refresh joins the running listener
+     */
+    public void setJoinRunningAsyncRefresh(boolean enabled) {
+        mAsyncRefreshRunner.setJoinEnabled(enabled);
+    }
+
+    /**
+     * Enable or disable speculative refresh start. When enabled, pull velocity is tracked and
+     * the refresh animation starts a few frames before a release which is predicted to trigger
+     * refresh. If the pull goes back below the threshold instead, the start is rolled back.
+     * {@link OnRefreshListener} is notified speculatively only when
+     * {@link OnRefreshCanceledListener} is set, otherwise it is notified on release.
+     * Disabled by default.
+     * @param enabled Whether or not refresh may start before the release
+     */
+    public void setSpeculativeRefreshEnabled(boolean enabled) {
+        mIsSpeculativeRefreshEnabled = enabled;
+        if (!enabled) {
+            recycleVelocityTracker();
+        }
+    }
+
+    /**
+     * Set the listener to be notified when speculatively started refresh is rolled back,
+     * see {@link #setSpeculativeRefreshEnabled(boolean)}.
+     */
+    public void setOnRefreshCanceledListener(@Nullable OnRefreshCanceledListener listener) {
+        mOnRefreshCanceledListener = listener;
+    }
+
+    /**
+     * Set the listener to be notified when the pull is likely to trigger refresh and when such
+     * pull is abandoned, e.g. to prepare the refresh before the release.
+     * @param listener Listener or null to remove it
+     */
+    public void setOnPullProgressListener(@Nullable OnPullProgressListener listener) {
+        mOnPullProgressListener = listener;
+    }
+
+    /**
+     * @param percent Part of {@link #getTotalDragDistance()} after which the pull is reported as
+     *                likely to refresh, 0.7 by default
+     */
+    public void setLikelyToRefreshPercent(@FloatRange(from = 0, to = 1) float percent) {
+        if (percent < 0f || percent > 1f) {
+            throw new IllegalArgumentException("Percent must be in [0, 1] range");
+        }
+        mLikelyToRefreshPercent = percent;
+    }
+
     /**
      * Set a callback to override {@link FireworkyPullToRefreshLayout#canChildScrollUp()} method. Non-null
      * callback will return the value provided by the callback and ignore all internal logic.
@@ -499,6 +1523,134 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
         mOnChildScrollUpCallback = callback;
     }
 
+    /**
+     * Enable or disable collecting of refresh animation drawing timings.
+     * Timings are collected per drawing section into fixed-size histograms, see {@link FrameTimings}.
+     * Disabled by default. Disabling clears collected timings.
+     * @param enabled Whether or not drawing timings should be collected
+     */
+    public void setFrameTimingsEnabled(boolean enabled) {
+        if (enabled == isFrameTimingsEnabled()) {
+            return;
+        }
+        mFrameTimings = enabled ? new FrameTimings() : null;
+        if (mRefreshDrawable != null) {
+            mRefreshDrawable.setFrameTimings(mFrameTimings);
+        }
+    }
+
+    /**
+     * @return Whether or not drawing timings are collected
+     */
+    public boolean isFrameTimingsEnabled() {
+        return mFrameTimings != null;
+    }
+
+    /**
+     * @return Copy of drawing timings collected since enabling or last reset,
+     *         null if collecting is disabled
+     */
+    @Nullable
+    public FrameTimings getFrameTimingsSnapshot() {
+        return mFrameTimings == null ? null : mFrameTimings.copy();
+    }
+
+    /**
+     * Clear collected drawing timings
+     */
+    public void resetFrameTimings() {
+        if (mFrameTimings != null) {
+            mFrameTimings.reset();
+        }
+    }
+
+    /**
+     * Set the listener to be notified after each drawn frame of the refresh animation.
+     * Works only when collecting is enabled by {@link #setFrameTimingsEnabled(boolean)}.
+     * @param listener Listener or null to remove it
+     */
+    public void setOnFrameTimingsListener(@Nullable OnFrameTimingsListener listener) {
+        mOnFrameTimingsListener = listener;
+    }
+
+    /**
+     * Replace timings the drawing is recorded to, used to measure gesture replays separately
+     * @return previous timings
+     */
+    @Nullable
+    FrameTimings replaceFrameTimings(@Nullable FrameTimings frameTimings) {
+        final FrameTimings previousFrameTimings = mFrameTimings;
+        mFrameTimings = frameTimings;
+        if (mRefreshDrawable != null) {
+            mRefreshDrawable.setFrameTimings(frameTimings);
+        }
+        return previousFrameTimings;
+    }
+
+    void dispatchFrameTimings(@NonNull FrameTimings frameTimings) {
+        if (mOnFrameTimingsListener != null) {
+            mOnFrameTimingsListener.onFrameTimings(frameTimings);
+        }
+    }
+
+    /**
+     * Enable or disable trace sections and counters of all layouts.
+     * Disabled by default, disabled tracing costs a field check per section.
+     * Counters are written on API 29+ only, via reflection, which allocates on every frame.
+     * @param enabled Whether or not sections and counters should be written to the system trace
+     */
+    public static void setTracingEnabled(boolean enabled) {
+        Tracing.setEnabled(enabled);
+    }
+
+    /**
+     * Start recording touch events received by the layout into a new {@link GestureTrace}.
+     * Running recording is discarded.
+     */
+    public void startGestureRecording() {
+        mGestureRecording = new GestureTrace();
+    }
+
+    /**
+     * @return Trace recorded since {@link #startGestureRecording()}, null if recording wasn't started
+     */
+    @Nullable
+    public GestureTrace stopGestureRecording() {
+        final GestureTrace trace = mGestureRecording;
+        mGestureRecording = null;
+        return trace;
+    }
+
+    /**
+     * Dispatch recorded touch events to the layout at their recorded times and measure drawing
+     * timings and UI thread allocations until the refresh triggered by them is over.
+     * Running replay is canceled. Must be called from the UI thread.
+     * @param trace    Trace to replay
+     * @param listener Listener to be notified when the replay is finished or null
+     */
+    public void replayGestureTrace(@NonNull GestureTrace trace, @Nullable OnGestureReplayListener listener) {
+        if (mGestureTracePlayer == null) {
+            mGestureTracePlayer = new GestureTracePlayer(this);
+        }
+        mGestureTracePlayer.start(trace, listener);
+    }
+
+    /**
+     * Stop running replay, the listener is not notified
+     */
+    public void cancelGestureReplay() {
+        if (mGestureTracePlayer != null) {
+            mGestureTracePlayer.cancel();
+        }
+    }
+
+    /**
+     * @return Whether or not a gesture trace is replayed
+     */
+    public boolean isGestureReplaying() {
+        return mGestureTracePlayer != null && mGestureTracePlayer.isReplaying();
+    }
+
     /**
      * For changing {@link FireworkyPullToRefreshLayout} just call this method and set necessary parameters
      * @return Current {@link FireworkyPullToRefreshLayout} configuration
@@ -518,6 +1670,76 @@ public class FireworkyPullToRefreshLayout extends ViewGroup {
         void onRefresh();
     }
 
+    /**
+     * Classes that wish to refresh off the main thread when the swipe gesture triggers a refresh
+     * should implement this interface.
+     */
+    public interface OnAsyncRefreshListener {
+        /**
+         * Called on the executor when a swipe gesture triggers a refresh.
+         * The refresh animation stops when this method returns or throws.
+         */
+        void onRefresh();
+    }
+
+    /**
+     * Classes that wish to know about the pull before it's released should implement this interface.
+     */
+    public interface OnPullProgressListener {
+        /**
+         * Called once per pull when it passes the likely to refresh threshold,
+         * see {@link FireworkyPullToRefreshLayout#setLikelyToRefreshPercent(float)}.
+         */
+        void onLikelyToRefresh();
+
+        /**
+         * Called when the pull reported by {@link #onLikelyToRefresh()} is released
+         * without triggering refresh.
+         */
+        void onPullAbandoned();
+    }
+
+    /**
+     * Classes that wish to start refresh speculatively should implement this interface,
+     * see {@link FireworkyPullToRefreshLayout#setSpeculativeRefreshEnabled(boolean)}.
+     */
+    public interface OnRefreshCanceledListener {
+        /**
+         * Called when the pull which speculatively triggered {@link OnRefreshListener#onRefresh()}
+         * isn't released past the threshold. The refresh should be canceled.
+         */
+        void onRefreshCanceled();
+    }
+
+    /**
+     * Classes that wish to receive refresh animation drawing timings should implement this interface.
+     */
+    public interface OnFrameTimingsListener {
+        /**
+         * Called on the UI thread after each drawn frame of the refresh animation.
+         *
+         * @param timings Live timings collected so far. They are updated in place on every frame,
+         *                so don't keep the reference; use
+         *                {@link FireworkyPullToRefreshLayout#getFrameTimingsSnapshot()} to get a copy.
+         */
+        void onFrameTimings(@NonNull FrameTimings timings);
+    }
+
+    /**
+     * Classes that wish to get results of {@link FireworkyPullToRefreshLayout#replayGestureTrace(GestureTrace, OnGestureReplayListener)}
+     * should implement this interface.
+     */
+    public interface OnGestureReplayListener {
+        /**
+         * Called on the UI thread when all events are dispatched and the refresh triggered by them is over.
+         *
+         * @param timings         Drawing timings collected during the replay
+         * @param allocationCount Number of objects allocated on the UI thread during the replay
+         * @param allocatedBytes  Size of objects allocated on the UI thread during the replay
+         */
+        void onReplayFinished(@NonNull FrameTimings timings, int allocationCount, int allocatedBytes);
+    }
+
     /**
      * Classes that wish to override {@link FireworkyPullToRefreshLayout#canChildScrollUp()} method
      * behavior should implement this interface.
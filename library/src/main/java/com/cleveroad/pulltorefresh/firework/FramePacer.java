@@ -0,0 +1,106 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how often the frame action runs. Frame requests are coalesced and delivered on
+ * {@link Choreographer} frames, frames closer than the cap allows to the previously delivered one
+ * are skipped. Without a cap requests are delivered immediately unless coalescing is enabled,
+ * below API 16 they are always delivered immediately.
+ */
+class FramePacer {
+    /**
+     * Vsync timestamps jitter, so frames are allowed to come a bit earlier than the cap
+     */
+    private static final long FRAME_TIME_TOLERANCE_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final Runnable mFrameAction;
+    private FrameCallback mFrameCallback;
+    private long mMinFrameIntervalNanos;
+    private long mLastFrameTimeNanos;
+    private boolean mIsFrameRequested;
+    private boolean mIsCoalescingEnabled;
+
+    FramePacer(@NonNull Runnable frameAction) {
+        mFrameAction = frameAction;
+    }
+
+    /**
+     * @param frameRateCap max frames per second, 0 for no cap
+     */
+    void setFrameRateCap(int frameRateCap) {
+        mMinFrameIntervalNanos = frameRateCap > 0 ? TimeUnit.SECONDS.toNanos(1) / frameRateCap : 0;
+    }
+
+    /**
+     * @param coalescingEnabled deliver requests once per frame even without a cap
+     */
+    void setCoalescingEnabled(boolean coalescingEnabled) {
+        mIsCoalescingEnabled = coalescingEnabled;
+    }
+
+    void requestFrame() {
+        if ((mMinFrameIntervalNanos == 0 && !mIsCoalescingEnabled) || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            cancel();
+            mFrameAction.run();
+            return;
+        }
+        if (!mIsFrameRequested) {
+            mIsFrameRequested = true;
+            getFrameCallback().post();
+        }
+    }
+
+    /**
+     * Drop pending frame request
+     */
+    void cancel() {
+        if (mIsFrameRequested) {
+            mIsFrameRequested = false;
+            mFrameCallback.remove();
+        }
+    }
+
+    /**
+     * Forget the last delivered frame, so the next request is not delayed after a pause
+     */
+    void reset() {
+        mLastFrameTimeNanos = 0;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private FrameCallback getFrameCallback() {
+        if (mFrameCallback == null) {
+            mFrameCallback = new FrameCallback();
+        }
+        return mFrameCallback;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private class FrameCallback implements Choreographer.FrameCallback {
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void remove() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (frameTimeNanos - mLastFrameTimeNanos < mMinFrameIntervalNanos - FRAME_TIME_TOLERANCE_NANOS) {
+                //too early, check again on the next vsync
+                post();
+                return;
+            }
+            mIsFrameRequested = false;
+            mLastFrameTimeNanos = frameTimeNanos;
+            mFrameAction.run();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Class {@link FrameTimings} contains CPU time spent by each drawing section of the refresh
+ * animation, collected into fixed-size histograms. Recording doesn't allocate.
+ * For getting timings use {@link FireworkyPullToRefreshLayout#setFrameTimingsEnabled(boolean)} and
+ * {@link FireworkyPullToRefreshLayout#getFrameTimingsSnapshot()} methods
+ */
+public final class FrameTimings {
+    private static final Section[] SECTIONS = Section.values();
+
+    /**
+     * Upper bounds of histogram buckets in nanoseconds, last bucket is unbounded
+     */
+    private static final long[] BUCKET_UPPER_BOUNDS_NANOS = {
+            125000L, 250000L, 500000L, 1000000L, 2000000L,
+            4000000L, 8000000L, 16000000L, 32000000L, Long.MAX_VALUE
+    };
+
+    private final long[][] mBucketCounts = new long[SECTIONS.length][BUCKET_UPPER_BOUNDS_NANOS.length];
+    private final long[] mSampleCounts = new long[SECTIONS.length];
+    private final long[] mTotalNanos = new long[SECTIONS.length];
+    private final long[] mMaxNanos = new long[SECTIONS.length];
+    private final long[] mCurrentFrameNanos = new long[SECTIONS.length];
+    private final boolean[] mCurrentFrameRecorded = new boolean[SECTIONS.length];
+    private long mFrameCount;
+
+    FrameTimings() {
+    }
+
+    private FrameTimings(FrameTimings src) {
+        for (int i = 0; i < SECTIONS.length; i++) {
+            System.arraycopy(src.mBucketCounts[i], 0, mBucketCounts[i], 0, mBucketCounts[i].length);
+        }
+        System.arraycopy(src.mSampleCounts, 0, mSampleCounts, 0, mSampleCounts.length);
+        System.arraycopy(src.mTotalNanos, 0, mTotalNanos, 0, mTotalNanos.length);
+        System.arraycopy(src.mMaxNanos, 0, mMaxNanos, 0, mMaxNanos.length);
+        mFrameCount = src.mFrameCount;
+    }
+
+    /**
+     * Add time to the section of the frame being drawn
+     * @param section drawing section
+     * @param nanos   time in nanoseconds
+     */
+    void addSectionTime(Section section, long nanos) {
+        final int index = section.ordinal();
+        mCurrentFrameNanos[index] += nanos;
+        mCurrentFrameRecorded[index] = true;
+        mCurrentFrameNanos[Section.FRAME.ordinal()] += nanos;
+        mCurrentFrameRecorded[Section.FRAME.ordinal()] = true;
+    }
+
+    /**
+     * Move times of the frame being drawn into histograms.
+     * Sections that weren't drawn in this frame are not recorded.
+     */
+    void finishFrame() {
+        for (int i = 0; i < SECTIONS.length; i++) {
+            if (mCurrentFrameRecorded[i]) {
+                record(i, mCurrentFrameNanos[i]);
+            }
+            mCurrentFrameNanos[i] = 0;
+            mCurrentFrameRecorded[i] = false;
+        }
+        mFrameCount++;
+    }
+
+    private void record(int sectionIndex, long nanos) {
+        mBucketCounts[sectionIndex][getBucketIndex(nanos)]++;
+        mSampleCounts[sectionIndex]++;
+        mTotalNanos[sectionIndex] += nanos;
+        if (nanos > mMaxNanos[sectionIndex]) {
+            mMaxNanos[sectionIndex] = nanos;
+        }
+    }
+
+    private static int getBucketIndex(long nanos) {
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_NANOS.length; i++) {
+            if (nanos < BUCKET_UPPER_BOUNDS_NANOS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_UPPER_BOUNDS_NANOS.length - 1;
+    }
+
+    /**
+     * Clear all collected timings
+     */
+    void reset() {
+        for (int i = 0; i < SECTIONS.length; i++) {
+            for (int j = 0; j < BUCKET_UPPER_BOUNDS_NANOS.length; j++) {
+                mBucketCounts[i][j] = 0;
+            }
+            mSampleCounts[i] = 0;
+            mTotalNanos[i] = 0;
+            mMaxNanos[i] = 0;
+            mCurrentFrameNanos[i] = 0;
+            mCurrentFrameRecorded[i] = false;
+        }
+        mFrameCount = 0;
+    }
+
+    /**
+     * @return immutable copy of collected timings
+     */
+    @NonNull
+    FrameTimings copy() {
+        return new FrameTimings(this);
+    }
+
+    /**
+     * @return number of recorded frames
+     */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @param section drawing section
+     * @return number of frames in which the section was drawn
+     */
+    public long getSampleCount(@NonNull Section section) {
+        return mSampleCounts[section.ordinal()];
+    }
+
+    /**
+     * @param section drawing section
+     * @return total section time in nanoseconds
+     */
+    public long getTotalTimeNanos(@NonNull Section section) {
+        return mTotalNanos[section.ordinal()];
+    }
+
+    /**
+     * @param section drawing section
+     * @return longest section time per frame in nanoseconds
+     */
+    public long getMaxTimeNanos(@NonNull Section section) {
+        return mMaxNanos[section.ordinal()];
+    }
+
+    /**
+     * @param section drawing section
+     * @return average section time per frame in nanoseconds
+     */
+    public long getAverageTimeNanos(@NonNull Section section) {
+        final long count = getSampleCount(section);
+        return count == 0 ? 0 : getTotalTimeNanos(section) / count;
+    }
+
+    /**
+     * @param section     drawing section
+     * @param bucketIndex histogram bucket index from 0 to {@link #getBucketCount()} - 1
+     * @return number of frames which section time fell into the bucket
+     */
+    public long getBucketSampleCount(@NonNull Section section, int bucketIndex) {
+        return mBucketCounts[section.ordinal()][bucketIndex];
+    }
+
+    /**
+     * @return number of histogram buckets
+     */
+    public static int getBucketCount() {
+        return BUCKET_UPPER_BOUNDS_NANOS.length;
+    }
+
+    /**
+     * @param bucketIndex histogram bucket index from 0 to {@link #getBucketCount()} - 1
+     * @return exclusive upper bound of the bucket in nanoseconds,
+     * {@link Long#MAX_VALUE} for the last bucket
+     */
+    public static long getBucketUpperBoundNanos(int bucketIndex) {
+        return BUCKET_UPPER_BOUNDS_NANOS[bucketIndex];
+    }
+
+    /**
+     * Drawing sections of the refresh animation
+     */
+    public enum Section {
+        CURVE, BACKGROUND, ROCKET_SMOKE, ROCKET, FIREWORKS,
+        /**
+         * Sum of all sections drawn in a frame
+         */
+        FRAME
+    }
+}
@@ -0,0 +1,213 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class {@link GestureTrace} contains touch events received by {@link FireworkyPullToRefreshLayout}:
+ * actions, pointer ids, positions and times including batched historical samples.
+ * Traces are recorded by {@link FireworkyPullToRefreshLayout#startGestureRecording()}, saved with
+ * {@link #writeTo(OutputStream)} and replayed by
+ * {@link FireworkyPullToRefreshLayout#replayGestureTrace(GestureTrace, FireworkyPullToRefreshLayout.OnGestureReplayListener)}
+ */
+public final class GestureTrace {
+    private static final int MAGIC = 0x46505452;
+    private static final int VERSION = 1;
+
+    private final List<Event> mEvents;
+    private long mStartTimeMillis = -1;
+
+    GestureTrace() {
+        mEvents = new ArrayList<>();
+    }
+
+    private GestureTrace(List<Event> events) {
+        mEvents = events;
+    }
+
+    /**
+     * Add the event, times are kept relative to the first recorded event
+     */
+    void record(@NonNull MotionEvent motionEvent) {
+        if (mStartTimeMillis < 0) {
+            mStartTimeMillis = motionEvent.getHistorySize() > 0
+                    ? motionEvent.getHistoricalEventTime(0)
+                    : motionEvent.getEventTime();
+        }
+        final int pointerCount = motionEvent.getPointerCount();
+        final int sampleCount = motionEvent.getHistorySize() + 1;
+        final int[] pointerIds = new int[pointerCount];
+        final int[] sampleTimes = new int[sampleCount];
+        final float[] coords = new float[sampleCount * pointerCount * 2];
+        for (int p = 0; p < pointerCount; p++) {
+            pointerIds[p] = motionEvent.getPointerId(p);
+        }
+        for (int s = 0; s < sampleCount; s++) {
+            final boolean isCurrent = s == sampleCount - 1;
+            sampleTimes[s] = (int) ((isCurrent ? motionEvent.getEventTime() : motionEvent.getHistoricalEventTime(s))
+                    - mStartTimeMillis);
+            for (int p = 0; p < pointerCount; p++) {
+                final int index = (s * pointerCount + p) * 2;
+                coords[index] = isCurrent ? motionEvent.getX(p) : motionEvent.getHistoricalX(p, s);
+                coords[index + 1] = isCurrent ? motionEvent.getY(p) : motionEvent.getHistoricalY(p, s);
+            }
+        }
+        final int downTime = (int) (motionEvent.getDownTime() - mStartTimeMillis);
+        mEvents.add(new Event(motionEvent.getAction(), downTime, pointerIds, sampleTimes, coords));
+    }
+
+    /**
+     * Write the trace in a compact binary format
+     * @param outputStream stream to write to, it isn't closed
+     */
+    public void writeTo(@NonNull OutputStream outputStream) throws IOException {
+        final DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(mEvents.size());
+        for (Event event : mEvents) {
+            out.writeShort(event.mAction);
+            out.writeInt(event.mDownTime);
+            out.writeByte(event.mPointerIds.length);
+            for (int pointerId : event.mPointerIds) {
+                out.writeByte(pointerId);
+            }
+            out.writeShort(event.mSampleTimes.length);
+            for (int sampleTime : event.mSampleTimes) {
+                out.writeInt(sampleTime);
+            }
+            for (float coord : event.mCoords) {
+                out.writeFloat(coord);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Read the trace written by {@link #writeTo(OutputStream)}
+     * @param inputStream stream to read from, it isn't closed
+     * @throws IOException if the stream can't be read or doesn't contain a trace
+     */
+    @NonNull
+    public static GestureTrace readFrom(@NonNull InputStream inputStream) throws IOException {
+        final DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a gesture trace");
+        }
+        final int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported gesture trace version " + version);
+        }
+        final int eventCount = in.readInt();
+        final List<Event> events = new ArrayList<>(eventCount);
+        for (int e = 0; e < eventCount; e++) {
+            final int action = in.readUnsignedShort();
+            final int downTime = in.readInt();
+            final int[] pointerIds = new int[in.readUnsignedByte()];
+            for (int p = 0; p < pointerIds.length; p++) {
+                pointerIds[p] = in.readUnsignedByte();
+            }
+            final int[] sampleTimes = new int[in.readUnsignedShort()];
+            for (int s = 0; s < sampleTimes.length; s++) {
+                sampleTimes[s] = in.readInt();
+            }
+            final float[] coords = new float[sampleTimes.length * pointerIds.length * 2];
+            for (int c = 0; c < coords.length; c++) {
+                coords[c] = in.readFloat();
+            }
+            events.add(new Event(action, downTime, pointerIds, sampleTimes, coords));
+        }
+        return new GestureTrace(events);
+    }
+
+    /**
+     * @return number of recorded events
+     */
+    public int getEventCount() {
+        return mEvents.size();
+    }
+
+    /**
+     * @return time from the first to the last recorded event in milliseconds
+     */
+    public long getDurationMillis() {
+        if (mEvents.isEmpty()) {
+            return 0;
+        }
+        final int[] lastSampleTimes = mEvents.get(mEvents.size() - 1).mSampleTimes;
+        return lastSampleTimes[lastSampleTimes.length - 1];
+    }
+
+    @NonNull
+    Event getEvent(int index) {
+        return mEvents.get(index);
+    }
+
+    /**
+     * Recorded motion event
+     */
+    static final class Event {
+        private final int mAction;
+        private final int mDownTime;
+        private final int[] mPointerIds;
+        private final int[] mSampleTimes;
+        private final float[] mCoords;
+
+        private Event(int action, int downTime, int[] pointerIds, int[] sampleTimes, float[] coords) {
+            mAction = action;
+            mDownTime = downTime;
+            mPointerIds = pointerIds;
+            mSampleTimes = sampleTimes;
+            mCoords = coords;
+        }
+
+        int getAction() {
+            return mAction;
+        }
+
+        /**
+         * @return down time relative to the trace start
+         */
+        int getDownTime() {
+            return mDownTime;
+        }
+
+        int getPointerCount() {
+            return mPointerIds.length;
+        }
+
+        int getPointerId(int pointerIndex) {
+            return mPointerIds[pointerIndex];
+        }
+
+        /**
+         * @return number of samples, historical ones and the current one which is the last
+         */
+        int getSampleCount() {
+            return mSampleTimes.length;
+        }
+
+        /**
+         * @return sample time relative to the trace start
+         */
+        int getSampleTime(int sampleIndex) {
+            return mSampleTimes[sampleIndex];
+        }
+
+        float getX(int sampleIndex, int pointerIndex) {
+            return mCoords[(sampleIndex * mPointerIds.length + pointerIndex) * 2];
+        }
+
+        float getY(int sampleIndex, int pointerIndex) {
+            return mCoords[(sampleIndex * mPointerIds.length + pointerIndex) * 2 + 1];
+        }
+    }
+}
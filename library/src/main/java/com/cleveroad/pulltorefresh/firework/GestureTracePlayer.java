@@ -0,0 +1,183 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+
+/**
+ * Dispatches events of {@link GestureTrace} to the layout at their recorded times, relative to
+ * the replay start. Drawing timings and allocations of the UI thread are measured from the start
+ * until the last event is dispatched and the refresh triggered by it is over.
+ */
+class GestureTracePlayer {
+    private static final long FINISH_CHECK_DELAY = 100;
+
+    private final FireworkyPullToRefreshLayout mLayout;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dispatchNextEvent();
+        }
+    };
+    private final Runnable mFinishRunnable = new Runnable() {
+        @Override
+        public void run() {
+            finishWhenIdle();
+        }
+    };
+
+    @Nullable
+    private GestureTrace mTrace;
+    @Nullable
+    private FireworkyPullToRefreshLayout.OnGestureReplayListener mListener;
+    @Nullable
+    private FrameTimings mFrameTimings;
+    @Nullable
+    private FrameTimings mPreviousFrameTimings;
+    private int mNextEventIndex;
+    private long mStartTimeMillis;
+    private int[] mPointerIds = new int[0];
+    private MotionEvent.PointerCoords[] mPointerCoords = new MotionEvent.PointerCoords[0];
+
+    GestureTracePlayer(@NonNull FireworkyPullToRefreshLayout layout) {
+        mLayout = layout;
+    }
+
+    /**
+     * Start replaying, the running replay is canceled. Must be called from the main thread.
+     */
+    @SuppressWarnings("deprecation")
+    void start(@NonNull GestureTrace trace, @Nullable FireworkyPullToRefreshLayout.OnGestureReplayListener listener) {
+        cancel();
+        mTrace = trace;
+        mListener = listener;
+        mNextEventIndex = 0;
+        mFrameTimings = new FrameTimings();
+        mPreviousFrameTimings = mLayout.replaceFrameTimings(mFrameTimings);
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        mStartTimeMillis = SystemClock.uptimeMillis();
+        scheduleNextEvent();
+    }
+
+    /**
+     * Stop replaying without notifying the listener. Must be called from the main thread.
+     */
+    void cancel() {
+        if (mTrace == null) {
+            return;
+        }
+        mMainHandler.removeCallbacks(mDispatchRunnable);
+        mMainHandler.removeCallbacks(mFinishRunnable);
+        stopMeasuring();
+    }
+
+    boolean isReplaying() {
+        return mTrace != null;
+    }
+
+    @SuppressWarnings("deprecation")
+    private void stopMeasuring() {
+        Debug.stopAllocCounting();
+        mLayout.replaceFrameTimings(mPreviousFrameTimings);
+        mPreviousFrameTimings = null;
+        mFrameTimings = null;
+        mTrace = null;
+        mListener = null;
+    }
+
+    private void scheduleNextEvent() {
+        final GestureTrace trace = mTrace;
+        if (trace == null) {
+            return;
+        }
+        if (mNextEventIndex >= trace.getEventCount()) {
+            mMainHandler.post(mFinishRunnable);
+            return;
+        }
+        final GestureTrace.Event event = trace.getEvent(mNextEventIndex);
+        mMainHandler.postAtTime(mDispatchRunnable, mStartTimeMillis + event.getSampleTime(event.getSampleCount() - 1));
+    }
+
+    private void dispatchNextEvent() {
+        final GestureTrace trace = mTrace;
+        if (trace == null) {
+            return;
+        }
+        final MotionEvent motionEvent = obtainMotionEvent(trace.getEvent(mNextEventIndex++));
+        mLayout.dispatchTouchEvent(motionEvent);
+        motionEvent.recycle();
+        scheduleNextEvent();
+    }
+
+    @SuppressWarnings("deprecation")
+    private void finishWhenIdle() {
+        if (mTrace == null || mFrameTimings == null) {
+            return;
+        }
+        if (mLayout.isRefreshing()) {
+            mMainHandler.postDelayed(mFinishRunnable, FINISH_CHECK_DELAY);
+            return;
+        }
+        final int allocationCount = Debug.getThreadAllocCount();
+        final int allocatedBytes = Debug.getThreadAllocSize();
+        final FrameTimings frameTimings = mFrameTimings.copy();
+        final FireworkyPullToRefreshLayout.OnGestureReplayListener listener = mListener;
+        stopMeasuring();
+        if (listener != null) {
+            listener.onReplayFinished(frameTimings, allocationCount, allocatedBytes);
+        }
+    }
+
+    /**
+     * Historical samples are added as a batch, the same way the input system delivers them
+     */
+    @SuppressWarnings("deprecation")
+    private MotionEvent obtainMotionEvent(GestureTrace.Event event) {
+        final int pointerCount = event.getPointerCount();
+        ensurePointersCapacity(pointerCount);
+        for (int p = 0; p < pointerCount; p++) {
+            mPointerIds[p] = event.getPointerId(p);
+        }
+        setPointerCoords(event, 0);
+        final MotionEvent motionEvent = MotionEvent.obtain(
+                mStartTimeMillis + event.getDownTime(),
+                mStartTimeMillis + event.getSampleTime(0),
+                event.getAction(), pointerCount, mPointerIds, mPointerCoords,
+                0, 1f, 1f, 0, 0, InputDevice.SOURCE_TOUCHSCREEN, 0);
+        for (int s = 1; s < event.getSampleCount(); s++) {
+            setPointerCoords(event, s);
+            motionEvent.addBatch(mStartTimeMillis + event.getSampleTime(s), mPointerCoords, 0);
+        }
+        return motionEvent;
+    }
+
+    private void setPointerCoords(GestureTrace.Event event, int sampleIndex) {
+        for (int p = 0; p < event.getPointerCount(); p++) {
+            final MotionEvent.PointerCoords coords = mPointerCoords[p];
+            coords.x = event.getX(sampleIndex, p);
+            coords.y = event.getY(sampleIndex, p);
+            coords.pressure = 1f;
+            coords.size = 1f;
+        }
+    }
+
+    private void ensurePointersCapacity(int pointerCount) {
+        if (mPointerCoords.length >= pointerCount) {
+            return;
+        }
+        final MotionEvent.PointerCoords[] pointerCoords = new MotionEvent.PointerCoords[pointerCount];
+        System.arraycopy(mPointerCoords, 0, pointerCoords, 0, mPointerCoords.length);
+        for (int p = mPointerCoords.length; p < pointerCount; p++) {
+            pointerCoords[p] = new MotionEvent.PointerCoords();
+        }
+        mPointerCoords = pointerCoords;
+        mPointerIds = new int[pointerCount];
+    }
+}
@@ -0,0 +1,57 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.NonNull;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Runs prewarm steps one by one while the main thread message queue is idle,
+ * so none of them delays a frame.
+ */
+class IdlePrewarmer implements MessageQueue.IdleHandler {
+    private final List<Runnable> mSteps = new LinkedList<>();
+    private boolean mIsScheduled;
+
+    /**
+     * @param step small piece of work to run on idle
+     */
+    void addStep(@NonNull Runnable step) {
+        mSteps.add(step);
+    }
+
+    /**
+     * Start running remaining steps on idle. Must be called from the main thread.
+     */
+    void schedule() {
+        if (!mIsScheduled && !mSteps.isEmpty()) {
+            mIsScheduled = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+    }
+
+    /**
+     * Stop running steps, remaining steps are kept for the next {@link #schedule()}
+     */
+    void cancel() {
+        if (mIsScheduled) {
+            mIsScheduled = false;
+            Looper.myQueue().removeIdleHandler(this);
+        }
+    }
+
+    boolean isFinished() {
+        return mSteps.isEmpty();
+    }
+
+    @Override
+    public boolean queueIdle() {
+        if (!mSteps.isEmpty()) {
+            mSteps.remove(0).run();
+        }
+        mIsScheduled = !mSteps.isEmpty();
+        return mIsScheduled;
+    }
+}
@@ -1,29 +1,43 @@
 package com.cleveroad.pulltorefresh.firework;
 
-import android.app.Activity;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
+import android.support.v4.content.ContextCompat;
 import android.view.ViewGroup;
 import android.view.animation.DecelerateInterpolator;
 
 import com.cleveroad.pulltorefresh.firework.particlesystem.ParticleSystem;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
 class ModernFireworksDrawer implements FireworksDrawer {
+    private static final String TRACE_DRAW = "FPTR:ModernFireworksDrawer.draw";
+    private static final String TRACE_PARTICLE_SYSTEM_DRAW = "FPTR:ParticleSystem.draw";
+    private static final String TRACE_ACTIVE_PARTICLES = "FPTR:active particles";
+    private static final String TRACE_POOLED_PARTICLES = "FPTR:pooled particles";
     private static final Random RND = new Random();
     private final int mMaxFireworksCount;
     private final ViewGroup mParentView;
     private final Configuration mConfiguration;
-    private final List<ParticleSystem> mParticleSystems = new LinkedList<>();
+    private final List<ParticleSystem> mParticleSystems;
+    /**
+     * Finished particle systems, emitted again instead of creating new ones
+     */
+    private final List<ParticleSystem> mFinishedParticleSystems;
+    private Bitmap mWhiteStarBitmap;
 
     ModernFireworksDrawer(@NonNull Configuration configuration, int maxFireworksCount, @NonNull ViewGroup parentView) {
         mConfiguration = configuration;
         mMaxFireworksCount = maxFireworksCount;
         mParentView = parentView;
+        mParticleSystems = new ArrayList<>(maxFireworksCount);
+        mFinishedParticleSystems = new ArrayList<>(maxFireworksCount);
     }
 
     private void emitFirework(int width, int height) {
@@ -35,49 +49,120 @@ class ModernFireworksDrawer implements FireworksDrawer {
         float y = RND.nextInt((int) (height - fireworkHeight)) + fireworkHeight;
 
         for(int i=0; i< mMaxFireworksCount; i++) {
-            ParticleSystem particleSystem = new ParticleSystem(
-                    (Activity) mParentView.getContext(),     //activity
-                    20,                         //max particles
-                    R.drawable.ptr_star_white,  //icon
-                    800L,                       //time to live
-                    mParentView);      //parent view
-            particleSystem.setScaleRange(0.7f, 1.3f);
-            particleSystem.setSpeedRange(0.03f, 0.07f);
-            particleSystem.setRotationSpeedRange(90, 180);
-            particleSystem.setFadeOut(500, new DecelerateInterpolator());
-            particleSystem.setTintColor(getRandomBubbleColor());
+            final int color = getRandomBubbleColor();
+            final Bitmap tintedStarBitmap = mConfiguration.getStarBitmap(color);
+            final Bitmap starBitmap = tintedStarBitmap != null ? tintedStarBitmap : getWhiteStarBitmap();
+            if (starBitmap == null) {
+                return;
+            }
+            final ParticleSystem particleSystem = obtainParticleSystem(starBitmap);
+            if (tintedStarBitmap != null) {
+                particleSystem.clearTintColor();
+            } else {
+                particleSystem.setTintColor(color);
+            }
 
             mParticleSystems.add(particleSystem);
             particleSystem.emit((int) x, (int) y, 70, 500);
         }
     }
 
+    private ParticleSystem obtainParticleSystem(@NonNull Bitmap starBitmap) {
+        if (!mFinishedParticleSystems.isEmpty()) {
+            final ParticleSystem particleSystem = mFinishedParticleSystems.remove(mFinishedParticleSystems.size() - 1);
+            particleSystem.setImage(starBitmap);
+            return particleSystem;
+        }
+        ParticleSystem particleSystem = new ParticleSystem(
+                mParentView,                //parent view
+                20,                         //max particles
+                new BitmapDrawable(mParentView.getResources(), starBitmap), //icon
+                800L);                      //time to live
+        particleSystem.setScaleRange(0.7f, 1.3f);
+        particleSystem.setSpeedRange(0.03f, 0.07f);
+        particleSystem.setRotationSpeedRange(90, 180);
+        particleSystem.setFadeOut(500, new DecelerateInterpolator());
+        return particleSystem;
+    }
+
+    /**
+     * Untinted star, used only if the tinted one couldn't be created
+     */
+    private Bitmap getWhiteStarBitmap() {
+        if (mWhiteStarBitmap == null) {
+            final Drawable drawable = ContextCompat.getDrawable(mParentView.getContext(), R.drawable.ptr_star_white);
+            if (drawable instanceof BitmapDrawable) {
+                mWhiteStarBitmap = ((BitmapDrawable) drawable).getBitmap();
+            }
+        }
+        return mWhiteStarBitmap;
+    }
+
     @Override
-    public void draw(Canvas canvas, int width, int height) {
+    public void draw(Canvas canvas, int width, int height, float frameSteps) {
+        Tracing.beginSection(TRACE_DRAW);
+        //particle systems are driven by their own animators
         if (mParticleSystems.isEmpty()) {
             emitFirework(width, height);
         }
 
+        int activeParticles = 0;
+        int pooledParticles = 0;
         for (int i = 0; i < mParticleSystems.size(); i++) {
             ParticleSystem particleSystem = mParticleSystems.get(i);
+            Tracing.beginSection(TRACE_PARTICLE_SYSTEM_DRAW);
             particleSystem.draw(canvas);
+            Tracing.endSection();
+            if (Tracing.isEnabled()) {
+                activeParticles += particleSystem.getActiveParticleCount();
+                pooledParticles += particleSystem.getPooledParticleCount();
+            }
 
             if(!particleSystem.isRunning()) {
-                mParticleSystems.remove(i);
+                mFinishedParticleSystems.add(mParticleSystems.remove(i));
                 i--;
             }
         }
+        Tracing.setCounter(TRACE_ACTIVE_PARTICLES, activeParticles);
+        Tracing.setCounter(TRACE_POOLED_PARTICLES, pooledParticles);
+        Tracing.endSection();
     }
 
     @Override
     public void reset() {
-        for (ParticleSystem ps : mParticleSystems) {
+        for (int i = 0; i < mParticleSystems.size(); i++) {
+            final ParticleSystem ps = mParticleSystems.get(i);
             ps.stopEmitting();
             ps.cancel();
+            mFinishedParticleSystems.add(ps);
         }
         mParticleSystems.clear();
     }
 
+    @Override
+    public void pause() {
+        for (ParticleSystem ps : mParticleSystems) {
+            ps.pause();
+        }
+    }
+
+    @Override
+    public void resume() {
+        for (ParticleSystem ps : mParticleSystems) {
+            ps.resume();
+        }
+    }
+
+    /**
+     * Stars are tinted by shared cache once per color
+     */
+    @Override
+    public void prewarm() {
+        for (int color : mConfiguration.getFireworkColors()) {
+            mConfiguration.getStarBitmap(color);
+        }
+    }
+
     @ColorInt
     private int getRandomBubbleColor() {
         int fireworkColors[] = mConfiguration.getFireworkColors();
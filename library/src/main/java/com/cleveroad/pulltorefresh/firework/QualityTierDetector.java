@@ -0,0 +1,194 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.content.BroadcastReceiver;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.provider.Settings;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import static com.cleveroad.pulltorefresh.firework.Configuration.QualityTier;
+
+/**
+ * Selects animation quality tier from system signals:
+ * animator duration scale, power save mode and thermal status.
+ * Signals are sampled on the first request and then updated by system callbacks, so later
+ * reads don't call system services. Main thread only.
+ */
+class QualityTierDetector {
+    /**
+     * PowerManager.THERMAL_STATUS_MODERATE and PowerManager.THERMAL_STATUS_SEVERE (API 29)
+     */
+    private static final int THERMAL_STATUS_MODERATE = 2;
+    private static final int THERMAL_STATUS_SEVERE = 3;
+    private static final int THERMAL_STATUS_API_LEVEL = 29;
+
+    private static boolean sIsInitialized;
+    private static float sAnimatorDurationScale = 1f;
+    private static boolean sIsPowerSaveMode;
+    private static int sThermalStatus;
+    @NonNull
+    private static QualityTier sQualityTier = QualityTier.FULL;
+
+    private QualityTierDetector() {
+    }
+
+    /**
+     * Sample system signals and subscribe to their changes, does nothing after the first call.
+     * @param context any context, application context is kept
+     */
+    static void init(@NonNull Context context) {
+        if (sIsInitialized) {
+            return;
+        }
+        sIsInitialized = true;
+        final Context appContext = context.getApplicationContext();
+        final Handler handler = new Handler(Looper.getMainLooper());
+
+        sAnimatorDurationScale = getAnimatorDurationScale(appContext);
+        registerAnimatorDurationScaleObserver(appContext, handler);
+
+        final PowerManager powerManager = (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null) {
+            sIsPowerSaveMode = isPowerSaveMode(powerManager);
+            registerPowerSaveModeReceiver(appContext, powerManager);
+            sThermalStatus = getThermalStatus(powerManager);
+            registerThermalStatusListener(powerManager);
+        }
+        update();
+    }
+
+    /**
+     * @return tier selected from the latest known system signals
+     */
+    @NonNull
+    static QualityTier get(@NonNull Context context) {
+        init(context);
+        return sQualityTier;
+    }
+
+    private static void update() {
+        if (Float.compare(sAnimatorDurationScale, 0f) == 0 || sThermalStatus >= THERMAL_STATUS_SEVERE) {
+            sQualityTier = QualityTier.MINIMAL;
+        } else if (sThermalStatus >= THERMAL_STATUS_MODERATE || sIsPowerSaveMode) {
+            sQualityTier = QualityTier.REDUCED;
+        } else {
+            sQualityTier = QualityTier.FULL;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static float getAnimatorDurationScale(Context context) {
+        ContentResolver resolver = context.getContentResolver();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return Settings.Global.getFloat(resolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return Settings.System.getFloat(resolver, Settings.System.ANIMATOR_DURATION_SCALE, 1f);
+        }
+        return 1f;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void registerAnimatorDurationScaleObserver(final Context context, Handler handler) {
+        final Uri uri;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            uri = Settings.Global.getUriFor(Settings.Global.ANIMATOR_DURATION_SCALE);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            uri = Settings.System.getUriFor(Settings.System.ANIMATOR_DURATION_SCALE);
+        } else {
+            return;
+        }
+        context.getContentResolver().registerContentObserver(uri, false, new ContentObserver(handler) {
+            @Override
+            public void onChange(boolean selfChange) {
+                sAnimatorDurationScale = getAnimatorDurationScale(context);
+                update();
+            }
+        });
+    }
+
+    private static boolean isPowerSaveMode(PowerManager powerManager) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && powerManager.isPowerSaveMode();
+    }
+
+    private static void registerPowerSaveModeReceiver(Context context, final PowerManager powerManager) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return;
+        }
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                sIsPowerSaveMode = isPowerSaveMode(powerManager);
+                update();
+            }
+        }, new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+    }
+
+    /**
+     * PowerManager#getCurrentThermalStatus() is not available in compile SDK, so it's called
+     * via reflection.
+     * @return thermal status or 0 (THERMAL_STATUS_NONE) if it's unknown
+     */
+    private static int getThermalStatus(PowerManager powerManager) {
+        if (Build.VERSION.SDK_INT < THERMAL_STATUS_API_LEVEL) {
+            return 0;
+        }
+        try {
+            Method method = PowerManager.class.getMethod("getCurrentThermalStatus");
+            return (Integer) method.invoke(powerManager);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * PowerManager.OnThermalStatusChangedListener is not available in compile SDK, so it's
+     * implemented by a proxy. Callbacks come on the main thread.
+     */
+    private static void registerThermalStatusListener(PowerManager powerManager) {
+        if (Build.VERSION.SDK_INT < THERMAL_STATUS_API_LEVEL) {
+            return;
+        }
+        try {
+            Class<?> listenerClass = Class.forName("android.os.PowerManager$OnThermalStatusChangedListener");
+            Object listener = Proxy.newProxyInstance(listenerClass.getClassLoader(),
+                    new Class<?>[]{listenerClass}, new ThermalStatusHandler());
+            PowerManager.class.getMethod("addThermalStatusListener", listenerClass).invoke(powerManager, listener);
+        } catch (Exception e) {
+            //thermal status stays as sampled
+        }
+    }
+
+    private static class ThermalStatusHandler implements InvocationHandler {
+        @Nullable
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "onThermalStatusChanged":
+                    sThermalStatus = (Integer) args[0];
+                    update();
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return ThermalStatusHandler.class.getSimpleName();
+                default:
+                    return null;
+            }
+        }
+    }
+}
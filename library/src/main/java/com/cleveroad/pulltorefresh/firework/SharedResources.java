@@ -0,0 +1,243 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.annotation.AnyRes;
+import android.support.annotation.ArrayRes;
+import android.support.annotation.ColorInt;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.content.ContextCompat;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Process-wide reference counted cache of library resources shared by all layouts.
+ * Drawables are shared by their constant state, so decoded bitmaps and rasterized vectors
+ * exist once per resource, configuration and tint. Resources nobody references are kept until
+ * the system asks to trim memory or the configuration changes.
+ */
+final class SharedResources {
+    private static final Map<Key, Entry> ENTRIES = new HashMap<>();
+    private static boolean sIsTrimCallbackRegistered;
+
+    private SharedResources() {
+    }
+
+    /**
+     * @param context context for resolving the resource
+     * @param resId   drawable resource id
+     * @return new drawable instance sharing its state with other instances of the resource.
+     * Must be released by {@link #release(Context, int)}
+     */
+    @Nullable
+    static synchronized Drawable acquireDrawable(@NonNull Context context, @DrawableRes int resId) {
+        final Entry entry = acquire(context, new Key(context, resId));
+        if (entry.mValue == null) {
+            final Drawable drawable = ContextCompat.getDrawable(context, resId);
+            final Drawable.ConstantState constantState = drawable == null ? null : drawable.getConstantState();
+            if (constantState == null) {
+                //can't be shared, nothing to keep
+                return drawable;
+            }
+            entry.mValue = constantState;
+        }
+        return ((Drawable.ConstantState) entry.mValue).newDrawable(context.getResources());
+    }
+
+    /**
+     * @param context context for resolving the resource
+     * @param resId   integer array resource id
+     * @return shared array, must not be modified. Must be released by {@link #release(Context, int)}
+     */
+    @NonNull
+    static synchronized int[] acquireIntArray(@NonNull Context context, @ArrayRes int resId) {
+        final Entry entry = acquire(context, new Key(context, resId));
+        if (entry.mValue == null) {
+            entry.mValue = context.getResources().getIntArray(resId);
+        }
+        return (int[]) entry.mValue;
+    }
+
+    /**
+     * Tint is baked into the bitmap the same way as multiply color filter does it while drawing,
+     * so drawing it doesn't need a color filter.
+     * @param context context for resolving the resource
+     * @param resId   bitmap drawable resource id
+     * @param tint    color to multiply bitmap by
+     * @return shared tinted bitmap, must not be modified or recycled, null if the resource isn't
+     * a bitmap. Must be released by {@link #release(Context, int, int)}
+     */
+    @Nullable
+    static synchronized Bitmap acquireTintedBitmap(@NonNull Context context, @DrawableRes int resId, @ColorInt int tint) {
+        final Entry entry = acquire(context, new Key(context, resId, tint));
+        if (entry.mValue == null) {
+            final Drawable drawable = ContextCompat.getDrawable(context, resId);
+            if (!(drawable instanceof BitmapDrawable)) {
+                return null;
+            }
+            final Bitmap source = ((BitmapDrawable) drawable).getBitmap();
+            final Bitmap tinted = Bitmap.createBitmap(source.getWidth(), source.getHeight(), Bitmap.Config.ARGB_8888);
+            final Paint paint = new Paint();
+            paint.setColorFilter(new PorterDuffColorFilter(tint, PorterDuff.Mode.MULTIPLY));
+            new Canvas(tinted).drawBitmap(source, 0, 0, paint);
+            entry.mValue = tinted;
+        }
+        return (Bitmap) entry.mValue;
+    }
+
+    /**
+     * Release resource acquired by {@link #acquireDrawable(Context, int)}
+     * or {@link #acquireIntArray(Context, int)}
+     * @param context context used for acquiring
+     * @param resId   resource id
+     */
+    static synchronized void release(@NonNull Context context, @AnyRes int resId) {
+        release(new Key(context, resId));
+    }
+
+    /**
+     * Release bitmap acquired by {@link #acquireTintedBitmap(Context, int, int)}
+     * @param context context used for acquiring
+     * @param resId   resource id
+     * @param tint    tint used for acquiring
+     */
+    static synchronized void release(@NonNull Context context, @DrawableRes int resId, @ColorInt int tint) {
+        release(new Key(context, resId, tint));
+    }
+
+    private static void release(Key key) {
+        Entry entry = ENTRIES.get(key);
+        if (entry == null || entry.mRefCount == 0) {
+            //configuration has been changed in place since the resource was acquired
+            entry = null;
+            for (Map.Entry<Key, Entry> mapEntry : ENTRIES.entrySet()) {
+                if (mapEntry.getKey().isSameResource(key) && mapEntry.getValue().mRefCount > 0) {
+                    entry = mapEntry.getValue();
+                    break;
+                }
+            }
+        }
+        if (entry != null) {
+            entry.mRefCount--;
+        }
+    }
+
+    /**
+     * Drop resources which are not referenced by anybody
+     */
+    static synchronized void trim() {
+        final Iterator<Entry> iterator = ENTRIES.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().mRefCount == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static Entry acquire(Context context, Key key) {
+        registerTrimCallback(context);
+        Entry entry = ENTRIES.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            ENTRIES.put(key, entry);
+        }
+        entry.mRefCount++;
+        return entry;
+    }
+
+    private static void registerTrimCallback(Context context) {
+        if (sIsTrimCallbackRegistered || Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            return;
+        }
+        sIsTrimCallbackRegistered = true;
+        context.getApplicationContext().registerComponentCallbacks(new TrimCallback());
+    }
+
+    @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+    private static class TrimCallback implements ComponentCallbacks2 {
+        @Override
+        public void onTrimMemory(int level) {
+            trim();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            //resources of the old configuration won't be requested again
+            trim();
+        }
+
+        @Override
+        public void onLowMemory() {
+            trim();
+        }
+    }
+
+    private static class Entry {
+        private Object mValue;
+        private int mRefCount;
+    }
+
+    private static class Key {
+        private final int mResId;
+        /**
+         * Resources may differ by any qualifier, not only by density
+         */
+        private final Configuration mConfiguration;
+        private final boolean mIsTinted;
+        private final int mTint;
+
+        Key(Context context, int resId) {
+            this(context, resId, false, 0);
+        }
+
+        Key(Context context, int resId, int tint) {
+            this(context, resId, true, tint);
+        }
+
+        private Key(Context context, int resId, boolean isTinted, int tint) {
+            mResId = resId;
+            mConfiguration = new Configuration(context.getResources().getConfiguration());
+            mIsTinted = isTinted;
+            mTint = tint;
+        }
+
+        boolean isSameResource(Key key) {
+            return mResId == key.mResId && mIsTinted == key.mIsTinted && mTint == key.mTint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return isSameResource(key) && mConfiguration.equals(key.mConfiguration);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mResId;
+            result = 31 * result + mConfiguration.hashCode();
+            result = 31 * result + (mIsTinted ? 1 : 0);
+            result = 31 * result + mTint;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.v4.os.TraceCompat;
+
+import java.lang.reflect.Method;
+
+/**
+ * Trace sections and counters of the refresh animation for systrace and Perfetto.
+ * Disabled by default, every call is a single field check then. Enable or disable it between
+ * frames, so sections stay balanced. Switched by
+ * {@link FireworkyPullToRefreshLayout#setTracingEnabled(boolean)}.
+ * Sections are public for the particle system package only, it's not a part of the library API.
+ *
+ * @hide
+ */
+public final class Tracing {
+    private static final int SET_COUNTER_API_LEVEL = 29;
+
+    private static volatile boolean sIsEnabled;
+    private static boolean sCounterMethodResolved;
+    private static Method sCounterMethod;
+
+    private Tracing() {
+    }
+
+    /**
+     * @param enabled whether sections and counters are written to the trace
+     */
+    static void setEnabled(boolean enabled) {
+        sIsEnabled = enabled;
+    }
+
+    static boolean isEnabled() {
+        return sIsEnabled;
+    }
+
+    /**
+     * Begin the section on the current thread, must be followed by {@link #endSection()}
+     * @param name section name, constant to avoid allocation
+     */
+    public static void beginSection(@NonNull String name) {
+        if (sIsEnabled) {
+            TraceCompat.beginSection(name);
+        }
+    }
+
+    public static void endSection() {
+        if (sIsEnabled) {
+            TraceCompat.endSection();
+        }
+    }
+
+    /**
+     * Write the counter value, API 29+ only. Trace.setCounter(String, long) is not available
+     * in compile SDK, so it's called via reflection, which allocates the arguments array and
+     * boxes the value on every call while tracing is enabled.
+     * @param name  counter name, constant to avoid allocation
+     * @param value counter value
+     */
+    static void setCounter(@NonNull String name, int value) {
+        if (!sIsEnabled || Build.VERSION.SDK_INT < SET_COUNTER_API_LEVEL) {
+            return;
+        }
+        final Method counterMethod = getCounterMethod();
+        if (counterMethod == null) {
+            return;
+        }
+        try {
+            counterMethod.invoke(null, name, (long) value);
+        } catch (Exception ignored) {
+            //counters are for debugging only
+        }
+    }
+
+    private static synchronized Method getCounterMethod() {
+        if (!sCounterMethodResolved) {
+            sCounterMethodResolved = true;
+            try {
+                sCounterMethod = Class.forName("android.os.Trace").getMethod("setCounter", String.class, long.class);
+            } catch (Exception e) {
+                sCounterMethod = null;
+            }
+        }
+        return sCounterMethod;
+    }
+}
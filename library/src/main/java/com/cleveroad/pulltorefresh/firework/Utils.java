@@ -1,8 +1,21 @@
 package com.cleveroad.pulltorefresh.firework;
 
+import android.animation.Animator;
 import android.content.Context;
+import android.os.Build;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import java.lang.reflect.Method;
 
 class Utils {
+    /**
+     * View#setRequestedFrameRate(float) appeared in API 35
+     */
+    private static final int REQUESTED_FRAME_RATE_API_LEVEL = 35;
+    private static boolean sRequestedFrameRateMethodResolved;
+    @Nullable
+    private static Method sRequestedFrameRateMethod;
 
     static int convertDpToPixel(Context context, int dp) {
         float density = context.getResources().getDisplayMetrics().density;
@@ -36,4 +49,51 @@ class Utils {
         double angle = Math.toRadians(angleInDegrees);
         return (float) (Math.sin(angle) * (pX - cX) + Math.cos(angle) * (pY - cY) + cY);
     }
+
+    /**
+     * Pause started animator. Does nothing on platforms without {@link Animator#pause()} support.
+     * @param animator animator to pause
+     */
+    static void pauseAnimator(@Nullable Animator animator) {
+        if (animator != null && animator.isStarted() && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            animator.pause();
+        }
+    }
+
+    /**
+     * Resume animator paused by {@link #pauseAnimator(Animator)}.
+     * @param animator animator to resume
+     */
+    static void resumeAnimator(@Nullable Animator animator) {
+        if (animator != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            animator.resume();
+        }
+    }
+
+    /**
+     * Hint preferred frame rate of the view to the platform where API for it exists.
+     * View#setRequestedFrameRate(float) is not available in compile SDK, so it's called via reflection.
+     * @param view      view to hint
+     * @param frameRate frame rate in frames per second or {@link Float#NaN} to clear the hint
+     */
+    static void setRequestedFrameRate(@Nullable View view, float frameRate) {
+        if (view == null || Build.VERSION.SDK_INT < REQUESTED_FRAME_RATE_API_LEVEL) {
+            return;
+        }
+        if (!sRequestedFrameRateMethodResolved) {
+            sRequestedFrameRateMethodResolved = true;
+            try {
+                sRequestedFrameRateMethod = View.class.getMethod("setRequestedFrameRate", float.class);
+            } catch (NoSuchMethodException e) {
+                sRequestedFrameRateMethod = null;
+            }
+        }
+        if (sRequestedFrameRateMethod != null) {
+            try {
+                sRequestedFrameRateMethod.invoke(view, frameRate);
+            } catch (Exception ignored) {
+                //hint only
+            }
+        }
+    }
 }
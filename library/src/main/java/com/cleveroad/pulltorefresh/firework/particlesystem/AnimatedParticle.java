@@ -4,7 +4,7 @@ import android.graphics.drawable.AnimationDrawable;
 import android.graphics.drawable.BitmapDrawable;
 
 
-class AnimatedParticle extends Particle {
+class AnimatedParticle extends SpriteParticle {
 
     private AnimationDrawable mAnimationDrawable;
     private int mTotalTime;
@@ -10,7 +10,9 @@ import android.graphics.Canvas;
 import android.graphics.drawable.AnimationDrawable;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
 import android.support.v4.content.ContextCompat;
 import android.util.DisplayMetrics;
 import android.view.Gravity;
@@ -19,8 +21,8 @@ import android.view.ViewGroup;
 import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
 
+import com.cleveroad.pulltorefresh.firework.Tracing;
 import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.AccelerationInitializer;
-import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.ParticleInitializer;
 import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.RotationInitializer;
 import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.RotationSpeedInitializer;
 import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.ScaleInitializer;
@@ -31,30 +33,37 @@ import com.cleveroad.pulltorefresh.firework.particlesystem.modifiers.ParticleMod
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
 
 public class ParticleSystem {
 
     private static final long TIMER_TASK_INTERVAL = 50;
-    private final List<Particle> mActiveParticles = new LinkedList<>();
-    private final ParticleTimerTask mTimerTask = new ParticleTimerTask(this);
+    private static final String TRACE_UPDATE = "FPTR:ParticleSystem.onUpdate";
+    private static final Interpolator LINEAR_INTERPOLATOR = new LinearInterpolator();
+    private final ParticleEmitter<SpriteParticle> mEmitter;
+    /**
+     * Pooled and active particles, so they can be changed without collecting them
+     */
+    private final List<SpriteParticle> mAllParticles = new ArrayList<>();
+    private final ParticleRenderer<SpriteParticle> mRenderer = new ParticleRenderer<SpriteParticle>() {
+        @Override
+        public void drawParticle(SpriteParticle particle) {
+            particle.draw(mCanvas);
+        }
+    };
+    private Canvas mCanvas;
+    private ParticleTimerTask mTimerTask;
     private ViewGroup mParentView;
     private int mMaxParticles;
-    private Random mRandom;
-    private ArrayList<Particle> mParticles;
     private long mTimeToLive;
     private long mCurrentTime = 0;
-    private float mParticlesPerMillisecond;
-    private int mActivatedParticles;
-    private long mEmittingTime;
-    private List<ParticleModifier> mModifiers;
-    private List<ParticleInitializer> mParticleInitializers;
     private ValueAnimator mAnimator;
+    private long mAnimationTime;
     private Timer mTimer;
+    private boolean mIsPaused;
     private float mDpToPxScale;
     private int[] mParentLocation;
 
@@ -64,18 +73,12 @@ public class ParticleSystem {
     private int mEmitterYMax;
 
     private ParticleSystem(ViewGroup parentView, int maxParticles, long timeToLive) {
-        mRandom = new Random();
         mParentLocation = new int[2];
 
         setParentViewGroup(parentView);
 
-        mModifiers = new ArrayList<>();
-        mParticleInitializers = new ArrayList<>();
-
         mMaxParticles = maxParticles;
-        // Create the particles
-
-        mParticles = new ArrayList<>();
+        mEmitter = new ParticleEmitter<>(timeToLive);
         mTimeToLive = timeToLive;
 
         DisplayMetrics displayMetrics = parentView.getContext().getResources().getDisplayMetrics();
@@ -96,13 +99,13 @@ public class ParticleSystem {
         if (drawable instanceof BitmapDrawable) {
             Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
             for (int i = 0; i < mMaxParticles; i++) {
-                mParticles.add(new Particle(bitmap));
+                addParticle(new SpriteParticle(bitmap));
             }
         } else //noinspection StatementWithEmptyBody
             if (drawable instanceof AnimationDrawable) {
                 AnimationDrawable animation = (AnimationDrawable) drawable;
                 for (int i = 0; i < mMaxParticles; i++) {
-                    mParticles.add(new AnimatedParticle(animation));
+                    addParticle(new AnimatedParticle(animation));
                 }
             } else {
                 // Not supported, no particles are being created
@@ -196,7 +199,7 @@ public class ParticleSystem {
     public ParticleSystem(Activity a, int maxParticles, Bitmap bitmap, long timeToLive, int parentViewId) {
         this((ViewGroup) a.findViewById(parentViewId), maxParticles, timeToLive);
         for (int i = 0; i < mMaxParticles; i++) {
-            mParticles.add(new Particle(bitmap));
+            addParticle(new SpriteParticle(bitmap));
         }
     }
 
@@ -225,10 +228,15 @@ public class ParticleSystem {
         this((ViewGroup) a.findViewById(parentViewId), maxParticles, timeToLive);
         // Create the particles
         for (int i = 0; i < mMaxParticles; i++) {
-            mParticles.add(new AnimatedParticle(animation));
+            addParticle(new AnimatedParticle(animation));
         }
     }
 
+    private void addParticle(SpriteParticle particle) {
+        mEmitter.addParticle(particle);
+        mAllParticles.add(particle);
+    }
+
     public float dpToPx(float dp) {
         return dp * mDpToPxScale;
     }
@@ -239,12 +247,12 @@ public class ParticleSystem {
      * @param modifier modifier to be added to the ParticleSystem
      */
     public ParticleSystem addModifier(ParticleModifier modifier) {
-        mModifiers.add(modifier);
+        mEmitter.addModifier(modifier);
         return this;
     }
 
     public ParticleSystem setSpeedRange(float speedMin, float speedMax) {
-        mParticleInitializers.add(new SpeedModuleAndRangeInitializer(dpToPx(speedMin), dpToPx(speedMax), 0, 360));
+        mEmitter.addInitializer(new SpeedModuleAndRangeInitializer(dpToPx(speedMin), dpToPx(speedMax), 0, 360));
         return this;
     }
 
@@ -266,7 +274,7 @@ public class ParticleSystem {
         while (maxAngle < minAngle) {
             maxAngle += 360;
         }
-        mParticleInitializers.add(new SpeedModuleAndRangeInitializer(dpToPx(speedMin), dpToPx(speedMax), minAngle, maxAngle));
+        mEmitter.addInitializer(new SpeedModuleAndRangeInitializer(dpToPx(speedMin), dpToPx(speedMax), minAngle, maxAngle));
         return this;
     }
 
@@ -281,7 +289,7 @@ public class ParticleSystem {
      * @return This.
      */
     public ParticleSystem setSpeedByComponentsRange(float speedMinX, float speedMaxX, float speedMinY, float speedMaxY) {
-        mParticleInitializers.add(new SpeedByComponentsInitializer(dpToPx(speedMinX), dpToPx(speedMaxX),
+        mEmitter.addInitializer(new SpeedByComponentsInitializer(dpToPx(speedMinX), dpToPx(speedMaxX),
                 dpToPx(speedMinY), dpToPx(speedMaxY)));
         return this;
     }
@@ -295,7 +303,7 @@ public class ParticleSystem {
      * @return This.
      */
     public ParticleSystem setInitialRotationRange(int minAngle, int maxAngle) {
-        mParticleInitializers.add(new RotationInitializer(minAngle, maxAngle));
+        mEmitter.addInitializer(new RotationInitializer(minAngle, maxAngle));
         return this;
     }
 
@@ -308,7 +316,7 @@ public class ParticleSystem {
      * @return This.
      */
     public ParticleSystem setScaleRange(float minScale, float maxScale) {
-        mParticleInitializers.add(new ScaleInitializer(minScale, maxScale));
+        mEmitter.addInitializer(new ScaleInitializer(minScale, maxScale));
         return this;
     }
 
@@ -320,7 +328,7 @@ public class ParticleSystem {
      * @return This.
      */
     public ParticleSystem setRotationSpeed(float rotationSpeed) {
-        mParticleInitializers.add(new RotationSpeedInitializer(rotationSpeed, rotationSpeed));
+        mEmitter.addInitializer(new RotationSpeedInitializer(rotationSpeed, rotationSpeed));
         return this;
     }
 
@@ -333,7 +341,7 @@ public class ParticleSystem {
      * @return This.
      */
     public ParticleSystem setRotationSpeedRange(float minRotationSpeed, float maxRotationSpeed) {
-        mParticleInitializers.add(new RotationSpeedInitializer(minRotationSpeed, maxRotationSpeed));
+        mEmitter.addInitializer(new RotationSpeedInitializer(minRotationSpeed, maxRotationSpeed));
         return this;
     }
 
@@ -350,7 +358,7 @@ public class ParticleSystem {
      * @return
      */
     public ParticleSystem setAccelerationModuleAndAndAngleRange(float minAcceleration, float maxAcceleration, int minAngle, int maxAngle) {
-        mParticleInitializers.add(new AccelerationInitializer(dpToPx(minAcceleration), dpToPx(maxAcceleration),
+        mEmitter.addInitializer(new AccelerationInitializer(dpToPx(minAcceleration), dpToPx(maxAcceleration),
                 minAngle, maxAngle));
         return this;
     }
@@ -366,7 +374,7 @@ public class ParticleSystem {
      * @return This.
      */
     public ParticleSystem setAcceleration(float acceleration, int angle) {
-        mParticleInitializers.add(new AccelerationInitializer(acceleration, acceleration, angle, angle));
+        mEmitter.addInitializer(new AccelerationInitializer(acceleration, acceleration, angle, angle));
         return this;
     }
 
@@ -398,7 +406,8 @@ public class ParticleSystem {
      * @param interpolator         the interpolator for the fade out (default is linear)
      */
     public ParticleSystem setFadeOut(long milisecondsBeforeEnd, Interpolator interpolator) {
-        mModifiers.add(new AlphaModifier(255, 0, mTimeToLive - milisecondsBeforeEnd, mTimeToLive, interpolator));
+        mEmitter.addModifier(new AlphaModifier(255, 0, mTimeToLive - milisecondsBeforeEnd, mTimeToLive,
+                new InterpolatorAdapter(interpolator)));
         return this;
     }
 
@@ -408,7 +417,7 @@ public class ParticleSystem {
      * @param duration fade out duration in milliseconds
      */
     public ParticleSystem setFadeOut(long duration) {
-        return setFadeOut(duration, new LinearInterpolator());
+        return setFadeOut(duration, LINEAR_INTERPOLATOR);
     }
 
     /**
@@ -470,10 +479,19 @@ public class ParticleSystem {
     }
 
     private void startEmiting(int particlesPerSecond) {
-        mActivatedParticles = 0;
-        mParticlesPerMillisecond = particlesPerSecond / 1000f;
-        mEmittingTime = -1; // Meaning infinite
+        mEmitter.startEmitting(particlesPerSecond);
         updateParticlesBeforeStartTime(particlesPerSecond);
+        if (mIsPaused) {
+            // the timer will be started on resume
+            mTimerTask = new ParticleTimerTask(this);
+        } else {
+            startTimer();
+        }
+    }
+
+    private void startTimer() {
+        // TimerTask can't be rescheduled, so each timer gets its own task
+        mTimerTask = new ParticleTimerTask(this);
         mTimer = new Timer();
         mTimer.schedule(mTimerTask, 0, TIMER_TASK_INTERVAL);
     }
@@ -489,14 +507,13 @@ public class ParticleSystem {
         mEmitterXMax = mEmitterXMin;
         mEmitterYMin = emitterY - mParentLocation[1];
         mEmitterYMax = mEmitterYMin;
+        mEmitter.setEmitterRange(mEmitterXMin, mEmitterXMax, mEmitterYMin, mEmitterYMax);
     }
 
     private void startEmiting(int particlesPerSecond, int emitingTime) {
-        mActivatedParticles = 0;
-        mParticlesPerMillisecond = particlesPerSecond / 1000f;
+        mEmitter.startEmitting(particlesPerSecond, emitingTime);
         updateParticlesBeforeStartTime(particlesPerSecond);
-        mEmittingTime = emitingTime;
-        startAnimator(new LinearInterpolator(), emitingTime + mTimeToLive);
+        startAnimator(LINEAR_INTERPOLATOR, emitingTime + mTimeToLive);
     }
 
     public void emit(int emitterX, int emitterY, int particlesPerSecond) {
@@ -519,7 +536,7 @@ public class ParticleSystem {
      * @param numParticles number of particles launched on the one shot
      */
     public void oneShot(View emiter, int numParticles) {
-        oneShot(emiter, numParticles, new LinearInterpolator());
+        oneShot(emiter, numParticles, LINEAR_INTERPOLATOR);
     }
 
     /**
@@ -531,34 +548,74 @@ public class ParticleSystem {
      */
     public void oneShot(View emiter, int numParticles, Interpolator interpolator) {
         configureEmiter(emiter, Gravity.CENTER);
-        mActivatedParticles = 0;
-        mEmittingTime = mTimeToLive;
         // We create particles based in the parameters
-        for (int i = 0; i < numParticles && i < mMaxParticles; i++) {
-            activateParticle(0);
-        }
+        mEmitter.oneShot(numParticles);
         // We start a property animator that will call us to do the update
         // Animate from 0 to timeToLiveMax
         startAnimator(interpolator, mTimeToLive);
     }
 
     public void setTintColor(@ColorInt int color) {
-        for (Particle p : mParticles) {
-            p.setTintColor(color);
+        final Integer tintColor = color;
+        for (int i = 0; i < mAllParticles.size(); i++) {
+            mAllParticles.get(i).setTintColor(tintColor);
+        }
+    }
+
+    /**
+     * Remove the tint set by {@link #setTintColor(int)}
+     */
+    public void clearTintColor() {
+        for (int i = 0; i < mAllParticles.size(); i++) {
+            mAllParticles.get(i).setTintColor(null);
+        }
+    }
+
+    /**
+     * Change the bitmap of all particles, so a finished system can be emitted again with
+     * another image instead of creating a new one. Particles of an animation switch back
+     * to its frames on the next update.
+     *
+     * @param bitmap The bitmap to use as particle
+     */
+    public void setImage(@NonNull Bitmap bitmap) {
+        for (int i = 0; i < mAllParticles.size(); i++) {
+            mAllParticles.get(i).setImage(bitmap);
         }
     }
 
+    /**
+     * The animator is created once and started again by the next emit, so emitting
+     * again doesn't allocate it and its listeners.
+     */
     private void startAnimator(Interpolator interpolator, long animnationTime) {
-        mAnimator = ValueAnimator.ofInt(0, (int) animnationTime);
+        if (mAnimator == null) {
+            mAnimator = ValueAnimator.ofInt(0, (int) animnationTime);
+            addAnimatorListeners(mAnimator);
+        } else if (mAnimationTime != animnationTime) {
+            mAnimator.setIntValues(0, (int) animnationTime);
+        }
+        mAnimationTime = animnationTime;
         mAnimator.setDuration(animnationTime);
-        mAnimator.addUpdateListener(new AnimatorUpdateListener() {
+        mAnimator.setInterpolator(interpolator);
+        mAnimator.start();
+        if (mIsPaused && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            mAnimator.pause();
+        }
+    }
+
+    private void addAnimatorListeners(ValueAnimator animator) {
+        animator.addUpdateListener(new AnimatorUpdateListener() {
             @Override
             public void onAnimationUpdate(ValueAnimator animation) {
-                int miliseconds = (Integer) animation.getAnimatedValue();
+                //getAnimatedValue() boxes the value on every frame, the fraction gives the same time
+                final long miliseconds = Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1
+                        ? (long) (animation.getAnimatedFraction() * mAnimationTime)
+                        : (Integer) animation.getAnimatedValue();
                 onUpdate(miliseconds);
             }
         });
-        mAnimator.addListener(new AnimatorListener() {
+        animator.addListener(new AnimatorListener() {
             @Override
             public void onAnimationStart(Animator animation) {
             }
@@ -577,8 +634,6 @@ public class ParticleSystem {
                 cleanupAnimation();
             }
         });
-        mAnimator.setInterpolator(interpolator);
-        mAnimator.start();
     }
 
     private void configureEmiter(View emiter, int gravity) {
@@ -622,56 +677,22 @@ public class ParticleSystem {
             mEmitterYMin = y - mParentLocation[1];
             mEmitterYMax = y + height - mParentLocation[1];
         }
+        mEmitter.setEmitterRange(mEmitterXMin, mEmitterXMax, mEmitterYMin, mEmitterYMax);
     }
 
     private boolean hasGravity(int gravity, int gravityToCheck) {
         return (gravity & gravityToCheck) == gravityToCheck;
     }
 
-    private void activateParticle(long delay) {
-        Particle particle = mParticles.remove(0);
-        particle.init();
-        // Initialization goes before configuration, scale is required before can be configured properly
-        for (int i = 0; i < mParticleInitializers.size(); i++) {
-            mParticleInitializers.get(i).initParticle(particle, mRandom);
-        }
-        int particleX = getFromRange(mEmitterXMin, mEmitterXMax);
-        int particleY = getFromRange(mEmitterYMin, mEmitterYMax);
-        particle.configure(mTimeToLive, particleX, particleY);
-        particle.activate(delay, mModifiers);
-        mActiveParticles.add(particle);
-        mActivatedParticles++;
-    }
-
-    private int getFromRange(int minValue, int maxValue) {
-        if (minValue == maxValue) {
-            return minValue;
-        }
-        return mRandom.nextInt(maxValue - minValue) + minValue;
-    }
-
     private void onUpdate(long miliseconds) {
-        while (((mEmittingTime > 0 && miliseconds < mEmittingTime) || mEmittingTime == -1) && // This point should emit
-                !mParticles.isEmpty() && // We have particles in the pool
-                mActivatedParticles < mParticlesPerMillisecond * miliseconds) { // and we are under the number of particles that should be launched
-            // Activate a new particle
-            activateParticle(miliseconds);
-        }
-        synchronized (mActiveParticles) {
-            for (int i = 0; i < mActiveParticles.size(); i++) {
-                boolean active = mActiveParticles.get(i).update(miliseconds);
-                if (!active) {
-                    Particle p = mActiveParticles.remove(i);
-                    i--; // Needed to keep the index at the right position
-                    mParticles.add(p);
-                }
-            }
-        }
+        Tracing.beginSection(TRACE_UPDATE);
+        mEmitter.update(miliseconds);
+        Tracing.endSection();
     }
 
     private void cleanupAnimation() {
         mParentView.postInvalidate();
-        mParticles.addAll(mActiveParticles);
+        mEmitter.clear();
     }
 
     /**
@@ -680,11 +701,28 @@ public class ParticleSystem {
      */
     public void stopEmitting() {
         // The time to be emiting is the current time (as if it was a time-limited emiter
-        mEmittingTime = mCurrentTime;
+        mEmitter.stopEmitting(mCurrentTime);
     }
 
+    /**
+     * @return read-only view of the particles being drawn, they are {@link SpriteParticle}s
+     */
     public synchronized List<Particle> getActiveParticles() {
-        return mActiveParticles;
+        return Collections.<Particle>unmodifiableList(mEmitter.getActiveParticles());
+    }
+
+    /**
+     * @return number of particles being drawn
+     */
+    public synchronized int getActiveParticleCount() {
+        return mEmitter.getActiveParticles().size();
+    }
+
+    /**
+     * @return number of particles available for emitting
+     */
+    public int getPooledParticleCount() {
+        return mEmitter.getPooledParticleCount();
     }
 
     public boolean isRunning() {
@@ -692,26 +730,67 @@ public class ParticleSystem {
     }
 
     public void draw(Canvas canvas) {
-        synchronized (mActiveParticles) {
-            for (Particle particle : mActiveParticles) {
-                particle.draw(canvas);
-            }
-        }
+        mCanvas = canvas;
+        mEmitter.draw(mRenderer);
+        mCanvas = null;
     }
 
     /**
-     * Cancels the particle system and all the animations.
+     * Cancels the particle system and all the animations, the emitting timer thread is stopped
+     * and active particles are returned to the pool, paused or not.
      * To stop emitting but animate until the end, use stopEmitting instead.
      */
     public void cancel() {
-        if (mAnimator != null && mAnimator.isRunning()) {
+        if (mAnimator != null && mAnimator.isStarted()) {
             mAnimator.cancel();
         }
         if (mTimer != null) {
             mTimer.cancel();
             mTimer.purge();
-            cleanupAnimation();
+            mTimer = null;
         }
+        mTimerTask = null;
+        cleanupAnimation();
+    }
+
+    /**
+     * Pauses the particle system: the emitting timer is stopped and the animator is paused
+     * (on API 19+), so no updates are computed while paused.
+     * Use resume to continue from the same point.
+     */
+    public void pause() {
+        if (mIsPaused) {
+            return;
+        }
+        mIsPaused = true;
+        if (mAnimator != null && mAnimator.isStarted() && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            mAnimator.pause();
+        }
+        if (mTimer != null) {
+            mTimer.cancel();
+            mTimer.purge();
+            mTimer = null;
+        }
+    }
+
+    /**
+     * Resumes the particle system paused by pause.
+     */
+    public void resume() {
+        if (!mIsPaused) {
+            return;
+        }
+        mIsPaused = false;
+        if (mAnimator != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            mAnimator.resume();
+        }
+        if (mTimerTask != null) {
+            startTimer();
+        }
+    }
+
+    public boolean isPaused() {
+        return mIsPaused;
     }
 
     private void updateParticlesBeforeStartTime(int particlesPerSecond) {
@@ -729,6 +808,22 @@ public class ParticleSystem {
         }
     }
 
+    /**
+     * Lets Android interpolators drive modifiers of the simulation
+     */
+    private static class InterpolatorAdapter implements ValueInterpolator {
+        private final Interpolator mInterpolator;
+
+        InterpolatorAdapter(Interpolator interpolator) {
+            mInterpolator = interpolator;
+        }
+
+        @Override
+        public float getInterpolation(float input) {
+            return mInterpolator.getInterpolation(input);
+        }
+    }
+
     private static class ParticleTimerTask extends TimerTask {
 
         private final WeakReference<ParticleSystem> mPs;
@@ -0,0 +1,63 @@
+package com.cleveroad.pulltorefresh.firework.particlesystem;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+
+/**
+ * Particle drawn as a bitmap
+ */
+public class SpriteParticle extends Particle {
+
+    private Bitmap mImage;
+    private Matrix mMatrix;
+    private Paint mPaint;
+
+    private PorterDuffColorFilter mTintFilter;
+
+    protected SpriteParticle() {
+        mMatrix = new Matrix();
+        mPaint = new Paint();
+    }
+
+    SpriteParticle(Bitmap bitmap) {
+        this();
+        setImage(bitmap);
+    }
+
+    void draw(Canvas canvas) {
+        mMatrix.reset();
+        mMatrix.postRotate(getRotation(), getHalfWidth(), getHalfHeight());
+        mMatrix.postScale(getScale(), getScale(), getHalfWidth(), getHalfHeight());
+        mMatrix.postTranslate(getCurrentX(), getCurrentY());
+
+        mPaint.setAlpha(getAlpha());
+        canvas.drawBitmap(mImage, mMatrix, mPaint);
+    }
+
+    void setTintColor(Integer tintColor) {
+        //filter is created once, not on every frame
+        mTintFilter = tintColor == null ? null : new PorterDuffColorFilter(tintColor, PorterDuff.Mode.MULTIPLY);
+        mPaint.setColorFilter(mTintFilter);
+    }
+
+    public Bitmap getImage() {
+        return mImage;
+    }
+
+    public void setImage(Bitmap image) {
+        mImage = image;
+        setSize(image.getWidth(), image.getHeight());
+    }
+
+    public Matrix getMatrix() {
+        return mMatrix;
+    }
+
+    public void setMatrix(Matrix matrix) {
+        mMatrix = matrix;
+    }
+}
@@ -1,11 +1,12 @@
 package com.cleveroad.pulltorefresh.firework;
 
-import android.support.annotation.FloatRange;
-import android.support.annotation.IntRange;
-
 import java.io.Serializable;
 
-class Bubble implements Serializable {
+/**
+ * Circle moving, rotating around its initial position, growing and fading by fixed steps
+ * per reference frame. Used for the classic fireworks and the rocket smoke.
+ */
+public class Bubble implements Serializable {
     private Bubble mInitialState;
     private Point mPosition;
     private Point mDPosition;
@@ -17,14 +18,26 @@ class Bubble implements Serializable {
     private Bubble() {
     }
 
-    Bubble(Bubble src) {
+    public Bubble(Bubble src) {
         copyTo(src, this);
         copyTo(this, mInitialState = new Bubble());
     }
 
     private Bubble(Builder builder) {
-        setPosition(builder.position);
-        setDPosition(builder.dPosition);
+        mPosition = new Point(0, 0);
+        mDPosition = new Point(0, 0);
+        mInitialState = new Bubble();
+        set(builder);
+    }
+
+    /**
+     * Take values of the builder and make them the initial state, points are reused
+     */
+    private void set(Builder builder) {
+        mPosition.x = builder.positionX;
+        mPosition.y = builder.positionY;
+        mDPosition.x = builder.dPositionX;
+        mDPosition.y = builder.dPositionY;
         setColor(builder.color);
         setRadius(builder.radius);
         setDRadius(builder.dRadius);
@@ -34,12 +47,22 @@ class Bubble implements Serializable {
         setDRotationAngle(builder.dRotationAngle);
         setRotationMulCoefficient(builder.rotationMulCoefficient);
 
-        copyTo(this, mInitialState = new Bubble());
+        copyTo(this, mInitialState);
     }
 
     private static void copyTo(Bubble src, Bubble dest) {
-        dest.mPosition = new Point(src.mPosition);
-        dest.mDPosition = new Point(src.mDPosition);
+        if (dest.mPosition == null) {
+            dest.mPosition = new Point(src.mPosition);
+        } else {
+            dest.mPosition.x = src.mPosition.x;
+            dest.mPosition.y = src.mPosition.y;
+        }
+        if (dest.mDPosition == null) {
+            dest.mDPosition = new Point(src.mDPosition);
+        } else {
+            dest.mDPosition.x = src.mDPosition.x;
+            dest.mDPosition.y = src.mDPosition.y;
+        }
         dest.mColor = src.mColor;
         dest.mRadius = src.mRadius;
         dest.mDRadius = src.mDRadius;
@@ -50,31 +73,42 @@ class Bubble implements Serializable {
         dest.mRotationMulCoefficient = src.mRotationMulCoefficient;
     }
 
-    static Builder newBuilder() {
+    public static Builder newBuilder() {
         return new Builder();
     }
 
 
     //--------------------------------------- bubble mPosition --------------------------------------
-    Point getPosition() {
+    public Point getPosition() {
         return mPosition;
     }
 
-    void setPosition(Point position) {
+    public void setPosition(Point position) {
         this.mPosition = position;
     }
 
-    float incrementXAndGet() {
-        mPosition.x += mDPosition.x;
+    public float incrementXAndGet() {
+        return incrementXAndGet(1f);
+    }
+
+    /**
+     * @param steps number of reference frames passed since the previous increment
+     */
+    public float incrementXAndGet(float steps) {
+        mPosition.x += mDPosition.x * steps;
         return getXPos();
     }
 
-    float incrementYAndGet() {
-        mPosition.y += mDPosition.y;
+    public float incrementYAndGet() {
+        return incrementYAndGet(1f);
+    }
+
+    public float incrementYAndGet(float steps) {
+        mPosition.y += mDPosition.y * steps;
         return getYPos();
     }
 
-    float getXPos() {
+    public float getXPos() {
         if (mDRotationAngle != Double.MIN_VALUE) {
             float deltaX = mPosition.x - mInitialState.mPosition.x;
             float deltaY = mPosition.y - mInitialState.mPosition.y;
@@ -83,11 +117,11 @@ class Bubble implements Serializable {
         } else return mPosition.x;
     }
 
-    void setXPos(float xPos) {
+    public void setXPos(float xPos) {
         this.mPosition.x = xPos;
     }
 
-    float getYPos() {
+    public float getYPos() {
         if (mDRotationAngle != Double.MIN_VALUE) {
             float deltaX = mPosition.x - mInitialState.mPosition.x;
             float deltaY = mPosition.y - mInitialState.mPosition.y;
@@ -96,128 +130,144 @@ class Bubble implements Serializable {
         } else return mPosition.y;
     }
 
-    void setYPos(float yPos) {
+    public void setYPos(float yPos) {
         this.mPosition.y = yPos;
     }
 
-    float getDx() {
+    public float getDx() {
         return mDPosition.x;
     }
 
-    void setDx(float dx) {
+    public void setDx(float dx) {
         this.mDPosition.x = dx;
     }
 
-    float getDy() {
+    public float getDy() {
         return mDPosition.y;
     }
 
-    void setDy(float dy) {
+    public void setDy(float dy) {
         this.mDPosition.y = dy;
     }
 
-    Point getDPosition() {
+    public Point getDPosition() {
         return mDPosition;
     }
 
-    void setDPosition(Point DPosition) {
+    public void setDPosition(Point DPosition) {
         this.mDPosition = DPosition;
     }
 
     //------------------------------------- rotation angle -----------------------------------------
-    void incrementRotationAngle() {
-        this.mRotationAngle += mDRotationAngle;
+    public void incrementRotationAngle() {
+        incrementRotationAngle(1f);
     }
 
-    double getRotationAngle() {
+    public void incrementRotationAngle(float steps) {
+        this.mRotationAngle += mDRotationAngle * steps;
+    }
+
+    public double getRotationAngle() {
         return mRotationAngle;
     }
 
-    void setRotationAngle(double rotationAngle) {
+    public void setRotationAngle(double rotationAngle) {
         this.mRotationAngle = rotationAngle;
     }
 
-    double getDRotationAngle() {
+    public double getDRotationAngle() {
         return mDRotationAngle;
     }
 
-    void setDRotationAngle(double DRotationAngle) {
+    public void setDRotationAngle(double DRotationAngle) {
         this.mDRotationAngle = DRotationAngle;
     }
 
-    double getRotationMulCoefficient() {
+    public double getRotationMulCoefficient() {
         return mRotationMulCoefficient;
     }
 
-    void setRotationMulCoefficient(double rotationMulCoefficient) {
+    public void setRotationMulCoefficient(double rotationMulCoefficient) {
         this.mRotationMulCoefficient = rotationMulCoefficient;
     }
 
     //----------------------------------------- visibility -----------------------------------------
-    int getColor() {
+    public int getColor() {
         return mColor;
     }
 
-    void setColor(int color) {
+    public void setColor(int color) {
         this.mColor = color;
     }
 
-    @IntRange(from = 0, to = 255)
-    int getAlpha() {
+    /**
+     * @return alpha in [0, 255] range
+     */
+    public int getAlpha() {
         mAlpha = mAlpha > 255 ? 255 : mAlpha;
         return (int) (mAlpha < 0 ? (mAlpha = 0) : mAlpha);
     }
 
-    void setAlpha(@FloatRange(from = 0, to = 255) float alpha) {
+    public void setAlpha(float alpha) {
         this.mAlpha = alpha;
     }
 
-    float getDAlpha() {
+    public float getDAlpha() {
         return mDAlpha;
     }
 
-    void setDAlpha(@FloatRange(from = 0, to = 255) float DAlpha) {
+    public void setDAlpha(float DAlpha) {
         this.mDAlpha = DAlpha;
     }
 
-    int incrementAlphaAndGet() {
-        mAlpha += mDAlpha;
+    public int incrementAlphaAndGet() {
+        return incrementAlphaAndGet(1f);
+    }
+
+    public int incrementAlphaAndGet(float steps) {
+        mAlpha += mDAlpha * steps;
         return getAlpha();
     }
 
-    boolean isInvisible() {
+    public boolean isInvisible() {
         return mAlpha <= 0 || mRadius <= 0;
     }
 
     //------------------------------------------- mRadius -------------------------------------------
-    float getRadius() {
+    public float getRadius() {
         return mRadius < 0 ? (mRadius = 0f) : mRadius;
     }
 
-    void setRadius(float radius) {
+    public void setRadius(float radius) {
         this.mRadius = radius < 0 ? 0 : radius;
     }
 
-    float incrementRadiusAndGet() {
-        this.mRadius += this.mDRadius;
+    public float incrementRadiusAndGet() {
+        return incrementRadiusAndGet(1f);
+    }
+
+    public float incrementRadiusAndGet(float steps) {
+        this.mRadius += this.mDRadius * steps;
         return getRadius();
     }
 
-    float getDRadius() {
+    public float getDRadius() {
         return mDRadius;
     }
 
-    void setDRadius(float DRadius) {
+    public void setDRadius(float DRadius) {
         this.mDRadius = DRadius;
     }
 
     //======================================= other methods ========================================
-    void reset() {
+    public void reset() {
         copyTo(mInitialState, this);
     }
 
-    @FloatRange(from = 0, to = 1)
-    float getPercent() {
+    /**
+     * @return progress of fading or shrinking in [0, 1] range
+     */
+    public float getPercent() {
         if (mAlpha <= 0f && mDAlpha <= 0f) {
             return 1.f;
         }
@@ -243,41 +293,43 @@ class Bubble implements Serializable {
         return percent;
     }
 
-    Bubble getInitialState() {
+    public Bubble getInitialState() {
         return mInitialState;
     }
 
-    void updateInitialState() {
+    public void updateInitialState() {
         copyTo(this, this.mInitialState = new Bubble());
     }
 
     //==============================================================================================
-    static class Point implements Serializable {
+    public static class Point implements Serializable {
         float x;
         float y;
 
-        Point(float x, float y) {
+        public Point(float x, float y) {
             this.x = x;
             this.y = y;
         }
 
-        Point(Point src) {
+        public Point(Point src) {
             this.x = src.x;
             this.y = src.y;
         }
 
-        float getX() {
+        public float getX() {
             return x;
         }
 
-        float getY() {
+        public float getY() {
             return y;
         }
     }
 
-    static final class Builder {
-        private Point position;
-        private Point dPosition;
+    public static final class Builder {
+        private float positionX;
+        private float positionY;
+        private float dPositionX;
+        private float dPositionY;
         private int color;
         private float radius;
         private float dRadius;
@@ -290,79 +342,79 @@ class Bubble implements Serializable {
         private Builder() {
         }
 
-        Builder position(Point position) {
-            this.position = new Point(position);
-            return this;
+        public Builder position(Point position) {
+            return position(position.x, position.y);
         }
 
-        Builder position(float positionX, float positionY) {
-            this.position = new Point(positionX, positionY);
+        public Builder position(float positionX, float positionY) {
+            this.positionX = positionX;
+            this.positionY = positionY;
             return this;
         }
 
-        Builder dPosition(Point dPosition) {
-            this.dPosition = new Point(dPosition);
-            return this;
+        public Builder dPosition(Point dPosition) {
+            return dPosition(dPosition.x, dPosition.y);
         }
 
-        Builder dPosition(float positionDx, float positionDy) {
-            this.dPosition = new Point(positionDx, positionDy);
+        public Builder dPosition(float positionDx, float positionDy) {
+            this.dPositionX = positionDx;
+            this.dPositionY = positionDy;
             return this;
         }
 
-        Builder color(int color) {
+        public Builder color(int color) {
             this.color = color;
             return this;
         }
 
-        Builder radius(float radius) {
+        public Builder radius(float radius) {
             this.radius = radius;
             return this;
         }
 
-        Builder dRadius(float dRadius) {
+        public Builder dRadius(float dRadius) {
             this.dRadius = dRadius;
             return this;
         }
 
-        Builder alpha(@FloatRange(from = 0, to = 255) float alpha) {
+        public Builder alpha(float alpha) {
             this.alpha = alpha;
             return this;
         }
 
-        Builder dAlpha(@FloatRange(from = -255, to = 255) float dAlpha) {
+        public Builder dAlpha(float dAlpha) {
             this.dAlpha = dAlpha;
             return this;
         }
 
-        Builder rotationAngle(double rotationAngle) {
+        public Builder rotationAngle(double rotationAngle) {
             this.rotationAngle = rotationAngle;
             return this;
         }
 
-        Builder dRotationAngle(double dRotationAngle) {
+        public Builder dRotationAngle(double dRotationAngle) {
             this.dRotationAngle = dRotationAngle;
             return this;
         }
 
-        Builder rotationMulCoefficient(double rotationMulCoefficient) {
+        public Builder rotationMulCoefficient(double rotationMulCoefficient) {
             this.rotationMulCoefficient = rotationMulCoefficient;
             return this;
         }
 
-        Bubble build() {
-            if (position == null) {
-                position = new Point(0, 0);
-            } else {
-                position = new Point(position);
-            }
-
-            if (dPosition == null) {
-                dPosition = new Point(0, 0);
-            } else {
-                dPosition = new Point(dPosition);
-            }
+        public Bubble build() {
             return new Bubble(this);
         }
+
+        /**
+         * Set the builder values to the bubble instead of creating a new one, so finished
+         * bubbles can be reused without allocation
+         * @param bubble bubble created by a builder
+         * @return the same bubble
+         */
+        public Bubble buildInto(Bubble bubble) {
+            bubble.set(this);
+            return bubble;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.cleveroad.pulltorefresh.firework;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Burst of bubbles of the classic fireworks: three rings flying apart from a random point
+ * while rotating, shrinking and fading.
+ */
+public class BubbleFirework {
+    private static final float NEXT_FIREWORK_PERCENT = 0.65f;
+
+    /**
+     * Ring of 9 bubbles and two rings of 13
+     */
+    private static final int BUBBLES_COUNT = 35;
+
+    private final List<Bubble> mBubbles = new ArrayList<>(BUBBLES_COUNT);
+    private final Bubble.Builder mBuilder = Bubble.newBuilder();
+    private boolean mIsFinished;
+    private boolean mIsNextFireworkDue;
+
+    private BubbleFirework() {
+    }
+
+    /**
+     * @param random             source of the position and colors
+     * @param width              width of the area the firework bursts in
+     * @param height             height of the area the firework bursts in
+     * @param maxFireworksCount  max number of fireworks shown at once, the area is split between them
+     * @param bubbleRadius       base radius of the bubbles
+     * @param colors             colors to pick from
+     */
+    public static BubbleFirework create(Random random, int width, int height, int maxFireworksCount,
+                                        float bubbleRadius, int[] colors) {
+        final BubbleFirework firework = new BubbleFirework();
+        firework.restart(random, width, height, maxFireworksCount, bubbleRadius, colors);
+        return firework;
+    }
+
+    /**
+     * Start a new burst at a new random point, bubbles of the previous one are reused.
+     * Parameters are the same as of {@link #create(Random, int, int, int, float, int[])}.
+     */
+    public void restart(Random random, int width, int height, int maxFireworksCount,
+                        float bubbleRadius, int[] colors) {
+        mIsFinished = false;
+        mIsNextFireworkDue = false;
+
+        float fireworkWidth = width / maxFireworksCount;
+        float fireworkHeight = height / maxFireworksCount;
+
+        float x = random.nextInt((int) (width - fireworkWidth)) + fireworkWidth / 2f;
+        float y = random.nextInt((int) (height - fireworkHeight)) + fireworkHeight / 2f;
+
+        Bubble.Builder builder = mBuilder
+                .position(x, y)
+                .dRotationAngle(0.01d);
+
+        //center, it's not drawn but sets the alpha of the rings
+        int color = getRandomColor(random, colors);
+        builder.dPosition(0.f, 0.f).color(color)
+                .radius(bubbleRadius * .2f).dRadius(.1f).alpha(255).dAlpha(-1.7f);
+
+        int index = 0;
+        color = getRandomColor(random, colors);
+        for (int k = 360 / 45; k >= 0; k--) {
+            setBubble(index++, builder
+                    .dPosition(rotateX(.7f, 0, k * 45), rotateY(.7f, 0, k * 45))
+                    .radius(bubbleRadius * .4f)
+                    .dRadius(-.15f)
+                    .dAlpha(-.8f)
+                    .color(color));
+        }
+
+        color = getRandomColor(random, colors);
+        for (int k = 360 / 30; k >= 0; k--) {
+            setBubble(index++, builder
+                    .dPosition(rotateX(.5f, 0, k * 30), rotateY(.5f, 0, k * 30))
+                    .radius(bubbleRadius * .2f)
+                    .dRadius(-.1f)
+                    .dAlpha(-.8f)
+                    .color(color));
+        }
+
+        color = getRandomColor(random, colors);
+        for (int k = 360 / 30; k >= 0; k--) {
+            setBubble(index++, builder
+                    .dPosition(rotateX(.3f, 0, k * 30), rotateY(.3f, 0, k * 30))
+                    .radius(bubbleRadius * .2f)
+                    .dRadius(-.1f)
+                    .dAlpha(-.8f)
+                    .color(color));
+        }
+    }
+
+    private void setBubble(int index, Bubble.Builder builder) {
+        if (index < mBubbles.size()) {
+            builder.buildInto(mBubbles.get(index));
+        } else {
+            mBubbles.add(builder.build());
+        }
+    }
+
+    /**
+     * Move all bubbles and draw them
+     * @param steps    number of reference (60 fps) frames passed since the previous call
+     * @param renderer renderer to draw the bubbles with
+     */
+    public void advance(float steps, BubbleRenderer renderer) {
+        boolean isFinished = true;
+        boolean isNextFireworkDue = true;
+        for (int i = 0; i < mBubbles.size(); i++) {
+            final Bubble b = mBubbles.get(i);
+            b.incrementRotationAngle(steps);
+            final int alpha = b.incrementAlphaAndGet(steps);
+            final float radius = b.incrementRadiusAndGet(steps);
+            renderer.drawBubble(b.incrementXAndGet(steps), b.incrementYAndGet(steps), radius, b.getColor(), alpha);
+            isFinished &= b.isInvisible();
+            isNextFireworkDue &= b.getPercent() > NEXT_FIREWORK_PERCENT;
+        }
+        mIsFinished = isFinished;
+        mIsNextFireworkDue = isNextFireworkDue;
+    }
+
+    /**
+     * @return whether all bubbles have faded out after the last {@link #advance(float, BubbleRenderer)}
+     */
+    public boolean isFinished() {
+        return mIsFinished;
+    }
+
+    /**
+     * @return whether the burst has progressed enough to show the next firework
+     */
+    public boolean isNextFireworkDue() {
+        return mIsNextFireworkDue;
+    }
+
+    public List<Bubble> getBubbles() {
+        return mBubbles;
+    }
+
+    private static int getRandomColor(Random random, int[] colors) {
+        return colors[random.nextInt(colors.length)];
+    }
+
+    /**
+     * Rotate point around the origin
+     */
+    private static float rotateX(float pX, float pY, float angleInDegrees) {
+        double angle = Math.toRadians(angleInDegrees);
+        return (float) (Math.cos(angle) * pX - Math.sin(angle) * pY);
+    }
+
+    private static float rotateY(float pX, float pY, float angleInDegrees) {
+        double angle = Math.toRadians(angleInDegrees);
+        return (float) (Math.sin(angle) * pX + Math.cos(angle) * pY);
+    }
+}
@@ -0,0 +1,15 @@
+package com.cleveroad.pulltorefresh.firework;
+
+/**
+ * Draws bubbles of the {@link BubbleFirework}, keeps the simulation independent of the drawing API.
+ */
+public interface BubbleRenderer {
+    /**
+     * @param x      center x
+     * @param y      center y
+     * @param radius radius
+     * @param color  color, its alpha is replaced by the alpha param
+     * @param alpha  alpha in [0, 255] range
+     */
+    void drawBubble(float x, float y, float radius, int color, int alpha);
+}
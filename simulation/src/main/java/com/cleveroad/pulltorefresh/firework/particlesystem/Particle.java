@@ -1,16 +1,13 @@
 package com.cleveroad.pulltorefresh.firework.particlesystem;
 
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Matrix;
-import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffColorFilter;
-
 import com.cleveroad.pulltorefresh.firework.particlesystem.modifiers.ParticleModifier;
 
 import java.util.List;
 
+/**
+ * Particle state and motion. How the particle looks is up to the subclass
+ * and the {@link ParticleRenderer}.
+ */
 public class Particle {
 
     private float mCurrentX;
@@ -24,48 +21,50 @@ public class Particle {
     private float mAccelerationX;
     private float mAccelerationY;
     private long mStartingMilliseconds;
-    private Bitmap mImage;
-    private Matrix mMatrix;
-    private Paint mPaint;
     private float mInitialX;
     private float mInitialY;
     private float mRotation;
     private long mTimeToLive;
-    private int mBitmapHalfWidth;
-    private int mBitmapHalfHeight;
+    private int mHalfWidth;
+    private int mHalfHeight;
 
     private List<ParticleModifier> mModifiers;
 
-    private Integer mTintColor;
-
-    protected Particle() {
-        mMatrix = new Matrix();
-        mPaint = new Paint();
+    public Particle() {
     }
 
-    Particle(Bitmap bitmap) {
-        this();
-        mImage = bitmap;
+    /**
+     * @param width  particle width, position is the top left corner of it
+     * @param height particle height
+     */
+    public Particle(int width, int height) {
+        setSize(width, height);
     }
 
-    void init() {
+    public void init() {
         mScale = 1;
         mAlpha = 255;
     }
 
-    void configure(long timeToLive, float emiterX, float emiterY) {
-        mBitmapHalfWidth = mImage.getWidth() / 2;
-        mBitmapHalfHeight = mImage.getHeight() / 2;
-
-        mInitialX = emiterX - mBitmapHalfWidth;
-        mInitialY = emiterY - mBitmapHalfHeight;
+    /**
+     * @param timeToLive lifetime in milliseconds
+     * @param emiterX    x of the particle center at the start
+     * @param emiterY    y of the particle center at the start
+     */
+    public void configure(long timeToLive, float emiterX, float emiterY) {
+        mInitialX = emiterX - mHalfWidth;
+        mInitialY = emiterY - mHalfHeight;
         mCurrentX = mInitialX;
         mCurrentY = mInitialY;
 
         mTimeToLive = timeToLive;
     }
 
-    boolean update(long milliseconds) {
+    /**
+     * @param milliseconds time of the particle system
+     * @return whether the particle is still alive
+     */
+    public boolean update(long milliseconds) {
         long realMilliseconds = milliseconds - mStartingMilliseconds;
         if (realMilliseconds > mTimeToLive) {
             return false;
@@ -79,28 +78,28 @@ public class Particle {
         return true;
     }
 
-    void draw(Canvas canvas) {
-        mMatrix.reset();
-        mMatrix.postRotate(mRotation, mBitmapHalfWidth, mBitmapHalfHeight);
-        mMatrix.postScale(mScale, mScale, mBitmapHalfWidth, mBitmapHalfHeight);
-        mMatrix.postTranslate(mCurrentX, mCurrentY);
-
-        if (mTintColor != null) {
-            mPaint.setColorFilter(new PorterDuffColorFilter(mTintColor, PorterDuff.Mode.MULTIPLY));
-        }
-        mPaint.setAlpha(mAlpha);
-        canvas.drawBitmap(mImage, mMatrix, mPaint);
-    }
-
-    Particle activate(long startingMilliseconds, List<ParticleModifier> modifiers) {
+    public Particle activate(long startingMilliseconds, List<ParticleModifier> modifiers) {
         mStartingMilliseconds = startingMilliseconds;
         // We do store a reference to the list, there is no need to copy, since the modifiers do not carte about states
         mModifiers = modifiers;
         return this;
     }
 
-    void setTintColor(Integer tintColor) {
-        mTintColor = tintColor;
+    protected void setSize(int width, int height) {
+        mHalfWidth = width / 2;
+        mHalfHeight = height / 2;
+    }
+
+    public int getHalfWidth() {
+        return mHalfWidth;
+    }
+
+    public int getHalfHeight() {
+        return mHalfHeight;
+    }
+
+    public float getRotation() {
+        return mRotation;
     }
 
     public float getCurrentX() {
@@ -190,20 +189,4 @@ public class Particle {
     public void setStartingMilliseconds(long startingMilliseconds) {
         mStartingMilliseconds = startingMilliseconds;
     }
-
-    public Bitmap getImage() {
-        return mImage;
-    }
-
-    public void setImage(Bitmap image) {
-        mImage = image;
-    }
-
-    public Matrix getMatrix() {
-        return mMatrix;
-    }
-
-    public void setMatrix(Matrix matrix) {
-        mMatrix = matrix;
-    }
 }
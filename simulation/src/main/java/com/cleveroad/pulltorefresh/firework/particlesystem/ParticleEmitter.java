@@ -0,0 +1,213 @@
+package com.cleveroad.pulltorefresh.firework.particlesystem;
+
+import com.cleveroad.pulltorefresh.firework.particlesystem.initializers.ParticleInitializer;
+import com.cleveroad.pulltorefresh.firework.particlesystem.modifiers.ParticleModifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Emission and integration of particles: a fixed pool of particles is activated at the emitter
+ * at the given rate and updated by the time of the particle system. Knows nothing about timers
+ * and drawing, particles are drawn by {@link ParticleRenderer}.
+ * @param <P> type of particles
+ */
+public class ParticleEmitter<P extends Particle> {
+    /**
+     * Array list, so activation doesn't allocate a node and update doesn't walk the list on every get
+     */
+    private final ArrayList<P> mActiveParticles = new ArrayList<>();
+    private final List<P> mParticles = new ArrayList<>();
+    private final List<ParticleModifier> mModifiers = new ArrayList<>();
+    private final List<ParticleInitializer> mParticleInitializers = new ArrayList<>();
+    private final Random mRandom;
+    private final long mTimeToLive;
+    private float mParticlesPerMillisecond;
+    private int mActivatedParticles;
+    private long mEmittingTime;
+
+    private int mEmitterXMin;
+    private int mEmitterXMax;
+    private int mEmitterYMin;
+    private int mEmitterYMax;
+
+    /**
+     * @param timeToLive time to live of the particles in milliseconds
+     */
+    public ParticleEmitter(long timeToLive) {
+        this(timeToLive, new Random());
+    }
+
+    /**
+     * @param timeToLive time to live of the particles in milliseconds
+     * @param random     source of randomness, seeded one makes the simulation reproducible
+     */
+    public ParticleEmitter(long timeToLive, Random random) {
+        mTimeToLive = timeToLive;
+        mRandom = random;
+    }
+
+    /**
+     * Add the particle to the pool, the pool size is the max number of active particles
+     */
+    public void addParticle(P particle) {
+        mParticles.add(particle);
+        //all particles may be active at once, no growing while emitting
+        mActiveParticles.ensureCapacity(mParticles.size());
+    }
+
+    public void addModifier(ParticleModifier modifier) {
+        mModifiers.add(modifier);
+    }
+
+    public void addInitializer(ParticleInitializer initializer) {
+        mParticleInitializers.add(initializer);
+    }
+
+    public long getTimeToLive() {
+        return mTimeToLive;
+    }
+
+    /**
+     * Particles are emitted from random points of the range
+     */
+    public void setEmitterRange(int xMin, int xMax, int yMin, int yMax) {
+        mEmitterXMin = xMin;
+        mEmitterXMax = xMax;
+        mEmitterYMin = yMin;
+        mEmitterYMax = yMax;
+    }
+
+    /**
+     * Emit particles until {@link #stopEmitting(long)}
+     * @param particlesPerSecond number of particles per second (evenly distributed)
+     */
+    public void startEmitting(int particlesPerSecond) {
+        mActivatedParticles = 0;
+        mParticlesPerMillisecond = particlesPerSecond / 1000f;
+        mEmittingTime = -1; // Meaning infinite
+    }
+
+    /**
+     * @param particlesPerSecond number of particles per second (evenly distributed)
+     * @param emittingTime       time to emit particles for in milliseconds
+     */
+    public void startEmitting(int particlesPerSecond, long emittingTime) {
+        mActivatedParticles = 0;
+        mParticlesPerMillisecond = particlesPerSecond / 1000f;
+        mEmittingTime = emittingTime;
+    }
+
+    /**
+     * Activate particles at once
+     * @param numParticles number of particles, limited by the pool size
+     */
+    public void oneShot(int numParticles) {
+        mActivatedParticles = 0;
+        mEmittingTime = mTimeToLive;
+        for (int i = 0; i < numParticles && !mParticles.isEmpty(); i++) {
+            activateParticle(0);
+        }
+    }
+
+    /**
+     * Stop emitting new particles, existing ones live until their time to live expires
+     * @param currentTime current time of the particle system
+     */
+    public void stopEmitting(long currentTime) {
+        mEmittingTime = currentTime;
+    }
+
+    /**
+     * Emit new particles and move active ones
+     * @param milliseconds time of the particle system
+     */
+    public void update(long milliseconds) {
+        while (((mEmittingTime > 0 && milliseconds < mEmittingTime) || mEmittingTime == -1) && // This point should emit
+                !mParticles.isEmpty() && // We have particles in the pool
+                mActivatedParticles < mParticlesPerMillisecond * milliseconds) { // and we are under the number of particles that should be launched
+            // Activate a new particle
+            activateParticle(milliseconds);
+        }
+        synchronized (mActiveParticles) {
+            for (int i = 0; i < mActiveParticles.size(); i++) {
+                boolean active = mActiveParticles.get(i).update(milliseconds);
+                if (!active) {
+                    P p = mActiveParticles.remove(i);
+                    i--; // Needed to keep the index at the right position
+                    mParticles.add(p);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return all active particles to the pool
+     */
+    public void clear() {
+        synchronized (mActiveParticles) {
+            //addAll() would copy the list to an array
+            for (int i = 0; i < mActiveParticles.size(); i++) {
+                mParticles.add(mActiveParticles.get(i));
+            }
+            mActiveParticles.clear();
+        }
+    }
+
+    public void draw(ParticleRenderer<? super P> renderer) {
+        synchronized (mActiveParticles) {
+            for (int i = 0; i < mActiveParticles.size(); i++) {
+                renderer.drawParticle(mActiveParticles.get(i));
+            }
+        }
+    }
+
+    public List<P> getActiveParticles() {
+        return mActiveParticles;
+    }
+
+    /**
+     * @return number of particles in the pool, available for activation
+     */
+    public int getPooledParticleCount() {
+        return mParticles.size();
+    }
+
+    /**
+     * @return all particles, active and pooled ones
+     */
+    public List<P> getAllParticles() {
+        final List<P> particles;
+        synchronized (mActiveParticles) {
+            particles = new ArrayList<>(mParticles.size() + mActiveParticles.size());
+            particles.addAll(mParticles);
+            particles.addAll(mActiveParticles);
+        }
+        return particles;
+    }
+
+    private void activateParticle(long delay) {
+        P particle = mParticles.remove(mParticles.size() - 1);
+        particle.init();
+        // Initialization goes before configuration, scale is required before can be configured properly
+        for (int i = 0; i < mParticleInitializers.size(); i++) {
+            mParticleInitializers.get(i).initParticle(particle, mRandom);
+        }
+        int particleX = getFromRange(mEmitterXMin, mEmitterXMax);
+        int particleY = getFromRange(mEmitterYMin, mEmitterYMax);
+        particle.configure(mTimeToLive, particleX, particleY);
+        particle.activate(delay, mModifiers);
+        synchronized (mActiveParticles) {
+            mActiveParticles.add(particle);
+        }
+        mActivatedParticles++;
+    }
+
+    private int getFromRange(int minValue, int maxValue) {
+        if (minValue == maxValue) {
+            return minValue;
+        }
+        return mRandom.nextInt(maxValue - minValue) + minValue;
+    }
+}
@@ -0,0 +1,10 @@
+package com.cleveroad.pulltorefresh.firework.particlesystem;
+
+/**
+ * Draws particles of the {@link ParticleEmitter}, keeps the simulation independent of
+ * the drawing API.
+ * @param <P> type of particles
+ */
+public interface ParticleRenderer<P extends Particle> {
+    void drawParticle(P particle);
+}
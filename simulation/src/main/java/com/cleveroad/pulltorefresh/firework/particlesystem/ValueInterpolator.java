@@ -0,0 +1,20 @@
+package com.cleveroad.pulltorefresh.firework.particlesystem;
+
+/**
+ * Maps elapsed fraction of a modifier to the fraction of its value change,
+ * the same contract as Android's TimeInterpolator.
+ */
+public interface ValueInterpolator {
+    ValueInterpolator LINEAR = new ValueInterpolator() {
+        @Override
+        public float getInterpolation(float input) {
+            return input;
+        }
+    };
+
+    /**
+     * @param input elapsed fraction in [0, 1] range
+     * @return interpolated fraction
+     */
+    float getInterpolation(float input);
+}
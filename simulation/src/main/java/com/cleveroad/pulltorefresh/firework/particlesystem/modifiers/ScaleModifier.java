@@ -1,9 +1,7 @@
 package com.cleveroad.pulltorefresh.firework.particlesystem.modifiers;
 
-import android.view.animation.Interpolator;
-import android.view.animation.LinearInterpolator;
-
 import com.cleveroad.pulltorefresh.firework.particlesystem.Particle;
+import com.cleveroad.pulltorefresh.firework.particlesystem.ValueInterpolator;
 
 
 public class ScaleModifier implements ParticleModifier {
@@ -14,9 +12,9 @@ public class ScaleModifier implements ParticleModifier {
     private long mStartTime;
     private long mDuration;
     private float mValueIncrement;
-    private Interpolator mInterpolator;
+    private ValueInterpolator mInterpolator;
 
-    public ScaleModifier(float initialValue, float finalValue, long startMillis, long endMillis, Interpolator interpolator) {
+    public ScaleModifier(float initialValue, float finalValue, long startMillis, long endMillis, ValueInterpolator interpolator) {
         mInitialValue = initialValue;
         mFinalValue = finalValue;
         mStartTime = startMillis;
@@ -27,7 +25,7 @@ public class ScaleModifier implements ParticleModifier {
     }
 
     public ScaleModifier(float initialValue, float finalValue, long startMillis, long endMillis) {
-        this(initialValue, finalValue, startMillis, endMillis, new LinearInterpolator());
+        this(initialValue, finalValue, startMillis, endMillis, ValueInterpolator.LINEAR);
     }
 
     @Override